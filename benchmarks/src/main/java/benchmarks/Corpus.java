@@ -0,0 +1,66 @@
+package benchmarks;
+
+import main.ApexDoc;
+import main.CorpusGenerator;
+import main.GeneratorConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @description Writes the synthetic Apex corpus the benchmarks run against, using
+ * CorpusGenerator, with its default ranges and seed unless told otherwise, so the same
+ * settings always produce the same files.
+ */
+public class Corpus {
+    private Corpus() {}
+
+    /**
+     * @description writes the corpus to a new temporary directory, which is deleted when
+     * the JVM exits.
+     * @param classes the number of top level classes and enums to write
+     * @return the files written, in name order
+     */
+    public static ArrayList<File> write(int classes) throws IOException {
+        return write(new CorpusGenerator(classes));
+    }
+
+    /**
+     * @description writes a corpus with the given generator's settings to a new temporary
+     * directory, which is deleted when the JVM exits.
+     * @param generator the generator to write the corpus with
+     * @return the files written, in name order
+     */
+    public static ArrayList<File> write(CorpusGenerator generator) throws IOException {
+        File directory = Files.createTempDirectory("apexdoc2-corpus").toFile();
+        directory.deleteOnExit();
+
+        ArrayList<File> files = generator.generate(directory);
+        for (File file : files) {
+            file.deleteOnExit();
+        }
+
+        return files;
+    }
+
+    /**
+     * @description the config the benchmarks parse and render with: every scope but
+     * webService, in alphabetical order, with links to hosted source.
+     * @param files the corpus, as written by write. Its directory is both the source and
+     * the target directory.
+     */
+    public static GeneratorConfig config(ArrayList<File> files) {
+        String directory = files.get(0).getParent();
+        return new GeneratorConfig.Builder()
+            .setSourceDirectories(Arrays.asList(directory))
+            .setTargetDirectory(directory)
+            .setScopes(Arrays.asList("global", "public", "private", "protected"))
+            .setSortOrder(ApexDoc.ORDER_ALPHA)
+            .setHostedSourceURL("https://example.com/src/")
+            .setShowMethodTOCDescription(true)
+            .build();
+    }
+}
@@ -0,0 +1,26 @@
+package benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * @description An output stream which discards what is written to it, so benchmarks can
+ * render pages without measuring the disk. It only counts the bytes written, which the
+ * benchmarks consume so that rendering can't be optimized away.
+ */
+public class NullOutputStream extends OutputStream {
+    private long count = 0;
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
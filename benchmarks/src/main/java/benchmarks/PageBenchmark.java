@@ -0,0 +1,75 @@
+package benchmarks;
+
+import main.ApexDoc;
+import main.CorpusGenerator;
+import main.DocGen;
+import main.GeneratorConfig;
+import main.HTMLBuffer;
+import main.SymbolTable;
+import main.models.ClassModel;
+import main.models.TopLevelModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @description Renders a single class page with 10, 100 and 1,000 methods, to show how the
+ * cost of a page grows with its size. Run it with the GC profiler, i.e. `-prof gc`, to
+ * report the bytes allocated per page as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageBenchmark {
+    @Param({ "10", "100", "1000" })
+    public int methods;
+
+    private SymbolTable symbols;
+    private ClassModel page;
+    private HTMLBuffer buffer;
+    private DocGen docGen;
+
+    @Setup
+    public void setup() throws IOException {
+        CorpusGenerator generator = new CorpusGenerator(1);
+        generator.setMethods(methods, methods);
+        generator.setInnerClasses(0, 0);
+        ArrayList<File> files = Corpus.write(generator);
+        GeneratorConfig config = Corpus.config(files);
+        docGen = new DocGen(config);
+
+        TopLevelModel model = ApexDoc.parseFileContents(files.get(0).getAbsolutePath(), config);
+        ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
+        models.add(model);
+        symbols = new SymbolTable(models);
+
+        page = (ClassModel) model;
+        buffer = new HTMLBuffer();
+    }
+
+    @Benchmark
+    public long documentClass() throws IOException {
+        NullOutputStream out = new NullOutputStream();
+        buffer.open(out);
+        docGen.documentClass(buffer, page, symbols);
+        buffer.close();
+        return out.getCount();
+    }
+}
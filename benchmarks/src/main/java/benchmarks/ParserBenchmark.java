@@ -0,0 +1,96 @@
+package benchmarks;
+
+import main.ApexDoc;
+import main.GeneratorConfig;
+import main.Utils;
+import main.models.MethodModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @description Parser hot paths, run over a synthetic corpus of 100, 1k and 10k classes.
+ * Each benchmark operation covers the whole corpus: every file, every doc comment block,
+ * or every source line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int classes;
+
+    private GeneratorConfig config;
+    private ArrayList<File> files;
+    private ArrayList<ArrayList<String>> commentBlocks;
+    private ArrayList<String> lines;
+
+    @Setup
+    public void setup() throws IOException {
+        files = Corpus.write(classes);
+        config = Corpus.config(files);
+
+        // split the corpus into trimmed lines, and collect its doc comment
+        // blocks the way parseFileContents hands them to the models
+        commentBlocks = new ArrayList<ArrayList<String>>();
+        lines = new ArrayList<String>();
+        for (File file : files) {
+            ArrayList<String> block = null;
+            for (String line : Files.readAllLines(file.toPath())) {
+                line = line.trim();
+                lines.add(line);
+                if (line.startsWith("/**")) {
+                    block = new ArrayList<String>();
+                }
+                if (block != null) {
+                    block.add(line.endsWith("*/") ? line.replace("*/", ApexDoc.DOC_BLOCK_BREAK) : line);
+                    if (line.endsWith("*/")) {
+                        commentBlocks.add(block);
+                        block = null;
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseFileContents(Blackhole bh) {
+        for (File file : files) {
+            bh.consume(ApexDoc.parseFileContents(file.getAbsolutePath(), config));
+        }
+    }
+
+    @Benchmark
+    public void parseComments(Blackhole bh) {
+        // comments are parsed when a model is constructed
+        for (ArrayList<String> block : commentBlocks) {
+            bh.consume(new MethodModel(block, "public void method(String value)", 1, config));
+        }
+    }
+
+    @Benchmark
+    public void containsScope(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(Utils.containsScope(line, config.getScopes()));
+        }
+    }
+}
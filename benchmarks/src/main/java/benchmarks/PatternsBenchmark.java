@@ -0,0 +1,221 @@
+package benchmarks;
+
+import main.ApexDoc;
+import main.DocGen;
+import main.Utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @description Compares the parse and render helpers which used to compile their regular
+ * expressions on every call (the *Inline benchmarks, which reproduce the old code) with
+ * the current helpers, which use the precompiled patterns in main.Patterns or scan the
+ * line directly. Each benchmark runs its helper over the same batch of sample lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternsBenchmark {
+    private static final String URL_REGEXP = "(https?)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
+    private static final String ANNOTATION_REGEXP = "@\\w+\\s*(\\([\\w=.*''/\\s]+\\))?";
+
+    private static final String[] LINES = {
+        "public with sharing class AccountService {",
+        "@IsTest(SeeAllData=true) private static void testInsert() {",
+        "global static List<Account> getAccounts(Set<Id> ids) {",
+        "private Map<String, Object> cache;",
+        "Integer count = 0;",
+        "@AuraEnabled @TestVisible public String name { get; set; }",
+        "public enum Season { WINTER, SPRING, SUMMER, FALL }",
+        "if (accounts.isEmpty()) { return null; }",
+        "list<contact> findContacts(String name) {",
+        "return 'a string with a { brace';"
+    };
+
+    private static final String[] URLS = {
+        "https://developer.salesforce.com/docs/apex",
+        "[Apex Guide](https://developer.salesforce.com/docs)",
+        "AccountService.getAccounts[1]",
+        "http://example.com/path?query=1&other=2"
+    };
+
+    private static final String[] DESCRIPTIONS = {
+        "Returns the `Account` records for the given `Id` values.<br/>Never returns null.",
+        "A plain description without any markup at all, which is the most common case.",
+        "Use <br> to break lines, and `backticks` for inline `code` snippets.",
+        "Handles the <b>bulk</b> case & large data volumes; see `Database.query`."
+    };
+
+    private List<String> scopes;
+
+    @Setup
+    public void setup() {
+        scopes = Arrays.asList("global", "public", "private", "protected");
+    }
+
+    @Benchmark
+    public void containsScopeInline(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(Inline.containsScope(line, scopes));
+        }
+    }
+
+    @Benchmark
+    public void containsScope(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(Utils.containsScope(line, scopes));
+        }
+    }
+
+    @Benchmark
+    public void isEnumInline(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(Inline.isEnum(line));
+        }
+    }
+
+    @Benchmark
+    public void isEnum(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(Utils.isEnum(line));
+        }
+    }
+
+    @Benchmark
+    public void isURLInline(Blackhole bh) {
+        for (String url : URLS) {
+            bh.consume(url.trim().matches("^" + URL_REGEXP));
+            bh.consume(url.trim().matches("^\\[.*\\]\\(.*\\)$"));
+        }
+    }
+
+    @Benchmark
+    public void isURL(Blackhole bh) {
+        for (String url : URLS) {
+            bh.consume(Utils.isURL(url));
+            bh.consume(Utils.isMarkdownURL(url));
+        }
+    }
+
+    @Benchmark
+    public void escapeHTMLInline(Blackhole bh) {
+        for (String description : DESCRIPTIONS) {
+            bh.consume(Inline.escapeHTML(description));
+        }
+    }
+
+    @Benchmark
+    public void escapeHTML(Blackhole bh) {
+        for (String description : DESCRIPTIONS) {
+            bh.consume(DocGen.escapeHTML(description, true));
+        }
+    }
+
+    // the helpers as they were before their patterns were precompiled
+    private static class Inline {
+        private static final String[] KEYWORDS = new String[] {
+            "abstract", "final", "virtual", "override",
+            "void", "blob", "boolean", "date", "datetime", "decimal",
+            "double", "id", "integer", "long", "object", "string", "time" };
+        private static final String[] COLLECTIONS = new String[] { "list", "set", "map" };
+
+        static String stripAnnotations(String line) {
+            int i = 0;
+            while (line.trim().startsWith("@")) {
+                line = line.trim().replaceFirst(ANNOTATION_REGEXP, "");
+                if (i >= 100) break;
+                i++;
+            }
+            return line;
+        }
+
+        static boolean isEnum(String line) {
+            line = stripAnnotations(line);
+            return line.matches("^(global\\s+|public\\s+|private\\s+)?enum\\b.*");
+        }
+
+        // Utils.containsScope verbatim, but for the scopes now being passed in rather than
+        // read from ApexDoc.rgstrScope
+        static String containsScope(String line, List<String> scopes) {
+            for (int i = 0; i < scopes.size(); i++) {
+                String scope = scopes.get(i).toLowerCase();
+
+                // if line starts with annotations, replace them, so
+                // we can accurately use startsWith to match scope.
+                line = stripAnnotations(line);
+                line = line.toLowerCase().trim();
+
+                // see if line starts with registered scopes.
+                if (line.startsWith(scope + " ")) {
+                    return scope;
+                }
+
+                // match implicitly private lines
+                else if (scope.equals(ApexDoc.PRIVATE)) {
+                    // match static props or methods:
+                    if (line.startsWith("static ")) {
+                        return ApexDoc.PRIVATE;
+                    }
+
+                    // match methods that start with
+                    // keywords or return primitive types:
+                    for (String keyword : KEYWORDS) {
+                        if (line.startsWith(keyword + " ") && line.contains("(")) {
+                            return ApexDoc.PRIVATE;
+                        }
+                    }
+
+                    // match metehods that return collections:
+                    for (String collection : COLLECTIONS) {
+                        if (line.matches("^" + collection + "<.+>\\s.*") && line.contains("(")) {
+                            return ApexDoc.PRIVATE;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        static String escapeHTML(String s) {
+            StringBuilder out = new StringBuilder(Math.max(16, s.length()));
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c > 127 || c == '"' || c == '<' || c == '>' || c == '&') {
+                    out.append("&#").append((int) c).append(';');
+                } else {
+                    out.append(c);
+                }
+            }
+
+            String result = String.join(" ", Arrays
+                .asList(out.toString().split("\\b\\s{1,2}\\b"))
+                .stream().map(word -> {
+                    if (word.indexOf("`") != word.lastIndexOf("`")) {
+                        word = word.replaceFirst("`", "<code class='inlineCode'>");
+                        word = word.replaceFirst("`", "</code>");
+                    }
+                    return word;
+                }).collect(Collectors.toList()));
+
+            return result.replaceAll("&#60;br\\s?/?&#62;", "<br>");
+        }
+    }
+}
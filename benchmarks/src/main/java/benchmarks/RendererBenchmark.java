@@ -0,0 +1,139 @@
+package benchmarks;
+
+import main.ApexDoc;
+import main.ClassGroup;
+import main.DocGen;
+import main.GeneratorConfig;
+import main.HTMLBuffer;
+import main.SymbolTable;
+import main.models.ApexModel;
+import main.models.ClassModel;
+import main.models.MethodModel;
+import main.models.TopLevelModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @description Renderer hot paths, run over the models parsed from a synthetic corpus of
+ * 100, 1k and 10k classes. Each benchmark operation covers the whole corpus: every class
+ * page, the menu, the @see symbol table, every @see token, or every description. Pages
+ * and the menu are rendered into an HTMLBuffer which discards its output, as FileManager
+ * renders them to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RendererBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int classes;
+
+    private ArrayList<TopLevelModel> models;
+    private SymbolTable symbols;
+    private TreeMap<String, ClassGroup> groupNameMap;
+    private ArrayList<ClassModel> classModels;
+    private ArrayList<String> seeTokens;
+    private ArrayList<String> descriptions;
+    private HTMLBuffer buffer;
+    private DocGen docGen;
+
+    @Setup
+    public void setup() throws IOException {
+        ArrayList<File> files = Corpus.write(classes);
+        GeneratorConfig config = Corpus.config(files);
+        docGen = new DocGen(config);
+
+        models = new ArrayList<TopLevelModel>();
+        for (File file : files) {
+            TopLevelModel model = ApexDoc.parseFileContents(file.getAbsolutePath(), config);
+            if (model != null) {
+                models.add(model);
+            }
+        }
+        groupNameMap = ApexDoc.createGroupNameMap(models, files.get(0).getParent());
+        symbols = new SymbolTable(models);
+        buffer = new HTMLBuffer();
+
+        // every class page, as FileManager renders them, and the
+        // @see tokens and descriptions rendered on those pages
+        classModels = new ArrayList<ClassModel>();
+        seeTokens = new ArrayList<String>();
+        descriptions = new ArrayList<String>();
+        for (TopLevelModel model : models) {
+            if (model.getModelType() == TopLevelModel.ModelType.CLASS) {
+                ClassModel cModel = (ClassModel) model;
+                classModels.add(cModel);
+                classModels.addAll(cModel.getChildClassesSorted());
+            }
+        }
+        for (ClassModel cModel : classModels) {
+            collect(cModel);
+            for (MethodModel method : cModel.getMethods()) {
+                collect(method);
+            }
+        }
+    }
+
+    private void collect(ApexModel model) {
+        if (!model.getSee().isEmpty()) seeTokens.add(model.getSee());
+        if (!model.getDescription().isEmpty()) descriptions.add(model.getDescription());
+    }
+
+    @Benchmark
+    public long documentClass() throws IOException {
+        NullOutputStream out = new NullOutputStream();
+        buffer.open(out);
+        for (ClassModel cModel : classModels) {
+            docGen.documentClass(buffer, cModel, symbols);
+        }
+        buffer.close();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long makeMenu() throws IOException {
+        NullOutputStream out = new NullOutputStream();
+        buffer.open(out);
+        DocGen.makeMenu(buffer, groupNameMap);
+        buffer.close();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public SymbolTable buildSymbolTable() {
+        return new SymbolTable(models);
+    }
+
+    @Benchmark
+    public void makeSeeLinks(Blackhole bh) {
+        for (String see : seeTokens) {
+            bh.consume(DocGen.makeSeeLinks(symbols, see));
+        }
+    }
+
+    @Benchmark
+    public void escapeHTML(Blackhole bh) {
+        for (String description : descriptions) {
+            bh.consume(DocGen.escapeHTML(description, true));
+        }
+    }
+}
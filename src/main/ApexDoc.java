@@ -2,11 +2,10 @@ package main;
 
 import main.models.*;
 import main.models.EnumModel;
-import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,14 +15,14 @@ import java.util.TreeMap;
 public class ApexDoc {
 
     // constants
-    private static final String APEX_DOC_VERSION = "1.0.0";
+    static final String APEX_DOC_VERSION = "1.0.0";
     private static final String COMMENT_CLOSE = "*/";
     private static final String COMMENT_OPEN = "/**";
-    private static final String GLOBAL = "global";
-    private static final String PUBLIC = "public";
-    private static final String WEB_SERVICE = "webService";
-    private static final String PROTECTED = "protected";
 
+    public static final String GLOBAL = "global";
+    public static final String PUBLIC = "public";
+    public static final String WEB_SERVICE = "webService";
+    public static final String PROTECTED = "protected";
     public static final String PRIVATE = "private";
     public static final String TEST_METHOD = "testMethod";
     public static final String CLASS = "class";
@@ -41,13 +40,6 @@ public class ApexDoc {
     public static final String DOC_BLOCK_BREAK = "@@BREAK@@";
     private static final ArrayList<String> SCOPES;
 
-    // non-constant properties
-    public static String[] rgstrScope;
-    private static FileManager fileManager;
-    public static String targetDirectory;
-    private static String sourceDirectory;
-    private static int numProcessed = 0;
-
     static {
         // initialize scopes const
         SCOPES = new ArrayList<String>();
@@ -70,26 +62,26 @@ public class ApexDoc {
         }
     }
 
-    // public main routine which is used by both command line invocation and
-    // Eclipse PlugIn invocation
-    public static void RunApexDoc(String[] args) {
-        StopWatch timer = new StopWatch();
-        timer.start();
-
-        String homefilepath = "";
-        String bannerFilePath = "";
-        String hostedSourceURL = "";
-        String documentTitle = "";
-        String sortOrder = ORDER_ALPHA;
-        String includes = "";
-        String excludes = "";
-
-        boolean showMethodTOCDescription = true;
+    /**
+     * @description public main routine which is used by both command line invocation and
+     * Eclipse PlugIn invocation. Parses the arguments into a GeneratorConfig, and generates
+     * the documentation with a DocGenerator. Returns once generation is done, unless asked
+     * to watch or serve, which continue until the process is stopped. To generate from
+     * code, e.g. from a build plugin, use GeneratorConfig and DocGenerator directly.
+     * @return the result of generating, or null if only the version was printed
+     * @throws IllegalArgumentException if an argument is unknown or invalid
+     */
+    public static DocGenerator.Result RunApexDoc(String[] args) throws IllegalArgumentException {
+        GeneratorConfig.Builder config = new GeneratorConfig.Builder();
+        String sourceDirectory = null;
+        String targetDirectory = null;
+        int servePort = 0;
+        boolean watch = false;
 
         // print ApexDoc2 version
         if (args.length == 1 && (args[0].equalsIgnoreCase("--v") || args[0].equalsIgnoreCase("--version"))) {
             Utils.log("ApexDoc2 version " + APEX_DOC_VERSION);
-            System.exit(0);
+            return null;
         }
 
         // parse command line parameters
@@ -99,29 +91,51 @@ public class ApexDoc {
             } else if (args[i].equalsIgnoreCase("-s")) {
                 sourceDirectory = sourceDirectoryGuard(args[++i]);
             } else if (args[i].equalsIgnoreCase("-u")) {
-                hostedSourceURL = sourceURLGuard(args[++i]);
+                config.setHostedSourceURL(sourceURLGuard(args[++i]));
             } else if (args[i].equalsIgnoreCase("-t")) {
                 targetDirectory = targetDirectoryGuard(args[++i]);
             } else if (args[i].equalsIgnoreCase("-h")) {
-                homefilepath = args[++i];
+                config.setHomeFilePath(args[++i]);
             } else if (args[i].equalsIgnoreCase("-b")) {
-                bannerFilePath = args[++i];
+                config.setBannerFilePath(args[++i]);
             } else if (args[i].equalsIgnoreCase("-p")) {
-                String scope = args[++i];
-                rgstrScope = scopeGuard(scope);
+                config.setScopes(Arrays.asList(scopeGuard(args[++i])));
             } else if (args[i].equalsIgnoreCase("-d")) {
-                documentTitle = args[++i];
+                config.setDocumentTitle(args[++i]);
             } else if (args[i].equalsIgnoreCase("-c")) {
-                showMethodTOCDescription = showTOCGuard(args[++i]);
+                config.setShowMethodTOCDescription(showTOCGuard(args[++i]));
             } else if (args[i].equalsIgnoreCase("-o")) {
-                sortOrder = sortOrderGuard(args[++i].trim());
+                config.setSortOrder(sortOrderGuard(args[++i].trim()));
             } else if (args[i].equalsIgnoreCase("-e")) {
-                excludes = args[++i].trim();
+                config.setExcludes(splitList(args[++i]));
             } else if (args[i].equalsIgnoreCase("-i")) {
-                includes = args[++i].trim();
+                config.setIncludes(splitList(args[++i]));
+            } else if (args[i].equalsIgnoreCase("-j")) {
+                config.setThreads(threadsGuard(args[++i].trim()));
+            } else if (args[i].equalsIgnoreCase("--incremental")) {
+                config.setIncremental(true);
+            } else if (args[i].equalsIgnoreCase("--cache")) {
+                config.setUseCache(true);
+            } else if (args[i].equalsIgnoreCase("--shared-menu")) {
+                config.setSharedMenu(true);
+            } else if (args[i].equalsIgnoreCase("--search")) {
+                config.setSearch(true);
+            } else if (args[i].equalsIgnoreCase("--lazy-details")) {
+                config.setLazyDetails(lazyDetailsGuard(args[++i].trim()));
+            } else if (args[i].equalsIgnoreCase("--gzip")) {
+                config.setGzip(true);
+            } else if (args[i].equalsIgnoreCase("--gzip-resources")) {
+                config.setGzipResources(true);
+            } else if (args[i].equalsIgnoreCase("--archive")) {
+                config.setArchivePath(archiveGuard(args[++i]));
+            } else if (args[i].equalsIgnoreCase("--watch")) {
+                watch = true;
+            } else if (args[i].equalsIgnoreCase("--serve")) {
+                servePort = portGuard(args[++i].trim());
+            } else if (args[i].equalsIgnoreCase("--metrics")) {
+                config.setMetricsPath(metricsGuard(args[++i]));
             } else {
-                Utils.printHelp();
-                System.exit(-1);
+                throw new IllegalArgumentException("Unknown argument: '" + args[i] + "'.");
             }
         }
 
@@ -129,68 +143,41 @@ public class ApexDoc {
         sourceDirectoryGuard(sourceDirectory);
         targetDirectoryGuard(targetDirectory);
 
-        // default scope to global and public if not specified
-        if (rgstrScope == null || rgstrScope.length == 0) {
-            rgstrScope = new String[3];
-            rgstrScope[0] = GLOBAL;
-            rgstrScope[1] = PUBLIC;
-            rgstrScope[2] = WEB_SERVICE;
+        DocGenerator generator = new DocGenerator(config
+            .setSourceDirectories(splitList(sourceDirectory))
+            .setTargetDirectory(targetDirectory)
+            .build());
+
+        // preview the documentation instead of writing it
+        if (servePort > 0) {
+            try {
+                generator.serve(servePort);
+                Thread.currentThread().join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not start the preview server: " + ex.getMessage(), ex);
+            }
+            return null;
         }
 
-        List<String> includeFiles = new ArrayList<String>();
-        List<String> excludeFiles = new ArrayList<String>();
-
-        if (!includes.equals("")) {
-            includeFiles = Arrays.asList(includes.split(","));
-        }
+        return watch ? generator.watch() : generator.generate();
+    }
 
-        if (!excludes.equals("")) {
-            excludeFiles = Arrays.asList(excludes.split(","));
+    // splits a comma separated argument, dropping empty values
+    private static List<String> splitList(String values) {
+        List<String> list = new ArrayList<String>();
+        for (String value : values.split(",")) {
+            if (!value.trim().isEmpty()) list.add(value.trim());
         }
-
-        // find all the files to parse
-        fileManager = new FileManager(targetDirectory);
-        ArrayList<File> files = fileManager.getFiles(sourceDirectory, includeFiles, excludeFiles);
-        ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
-        TreeMap<String, TopLevelModel> modelMap = new TreeMap<String, TopLevelModel>();
-
-        fileManager.setDocumentTitle(documentTitle);
-
-        // set up document generator
-        DocGen.sortOrderStyle = sortOrder;
-        DocGen.hostedSourceURL = hostedSourceURL;
-        DocGen.showMethodTOCDescription = showMethodTOCDescription;
-
-        // parse each file, creating a class or enum model for it
-        files.stream().forEach(fromFile -> {
-            String fromFileName = fromFile.getAbsolutePath();
-            TopLevelModel model = parseFileContents(fromFileName);
-            modelMap.put(model.getName().toLowerCase(), model);
-            if (model != null) {
-                models.add(model);
-                numProcessed++;
-            }
-        });
-
-        // create our Groups
-        TreeMap<String, ClassGroup> classGroupMap = createGroupNameMap(models, sourceDirectory);
-
-        // load up optional specified file templates
-        String bannerContents = fileManager.parseHTMLFile(bannerFilePath);
-        String homeContents = fileManager.parseHTMLFile(homefilepath);
-
-        // create our set of HTML files
-        fileManager.createDocs(classGroupMap, modelMap, models, bannerContents, homeContents);
-
-        // we are done!
-        timer.stop();
-        Utils.log("ApexDoc2 complete! " + numProcessed + " Apex files processed in " + timer.getTime() + " ms.");
-        System.exit(0);
+        return list;
     }
 
-    private static TreeMap<String, ClassGroup> createGroupNameMap(ArrayList<TopLevelModel> models,
+    public static TreeMap<String, ClassGroup> createGroupNameMap(ArrayList<TopLevelModel> models,
             String sourceDirectory) {
         TreeMap<String, ClassGroup> map = new TreeMap<String, ClassGroup>();
+        // this is the only place we need the list of models sorted by name.
+        TreeMap<String, TopLevelModel> sortedModels = new TreeMap<String, TopLevelModel>();
 
         models.stream().forEach(model -> {
             String group = model.getGroupName();
@@ -209,31 +196,57 @@ public class ApexDoc {
                 }
                 // put the new or potentially modified ClassGroup back in the map
                 map.put(group, cg);
+            } else if (!map.containsKey(ClassGroup.MISCELLANEOUS)) {
+                // add a bucket ClassGroup for all Classes without a ClassGroup specified
+                map.put(ClassGroup.MISCELLANEOUS, new ClassGroup(ClassGroup.MISCELLANEOUS, null));
             }
+
+            sortedModels.put(model.getName().toLowerCase(), model);
         });
 
+        // index each group's models, in name order, so that
+        // the menu can be made in a single pass over the groups
+        for (TopLevelModel model : sortedModels.values()) {
+            String group = model.getGroupName() != null ? model.getGroupName() : ClassGroup.MISCELLANEOUS;
+            map.get(group).addModel(model);
+        }
+
         return map;
     }
 
-    public static TopLevelModel parseFileContents(String filePath) {
+    public static TopLevelModel parseFileContents(String filePath, GeneratorConfig config) {
+        try {
+            return parseSource(SourceReader.read(Paths.get(filePath)), config);
+        } catch (IOException ex) {
+            Utils.log(ex);
+            return null;
+        }
+    }
+
+    /**
+     * @description parses decoded Apex source, e.g. as read by SourceReader.
+     * @param source the source, which must not change until parsing is done
+     * @param config the generation's config, whose scopes decide what is documented
+     * @return the top level class or enum, or null if the source could not be parsed or
+     * its top level class is outside the documented scopes
+     */
+    public static TopLevelModel parseSource(CharBuffer source, GeneratorConfig config) {
         try {
-            // Get the object of DataInputStream
-            FileInputStream fileStream = new FileInputStream(filePath);
-            DataInputStream inputStream = new DataInputStream(fileStream);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+            ApexLexer lexer = new ApexLexer(source);
 
             int nestedCurlyBraceDepth = 0, lineNum = 0;
-            String line, originalLine, previousLine = "";
+            String line, previousLine = "";
             boolean commentsStarted = false, docBlockStarted = false;
 
             ClassModel cModel = null, cModelParent = null;
             ArrayList<String> comments = new ArrayList<String>();
             Stack<ClassModel> cModels = new Stack<ClassModel>();
 
-            // DH: Consider using java.io.StreamTokenizer to read the file a
-            // token at a time?
+            // the lexer makes a single pass over the source, handing us each
+            // trimmed line along with the number of curly braces on it which
+            // are actual code (not inside of string literals or comments).
             //
-            // new strategy notes:
+            // strategy notes:
             // any line with " class " is a class definition
             // any line with scope (global, public, private) is a class, method,
             // or property definition.
@@ -244,10 +257,9 @@ public class ApexDoc {
             // with 1 param, are actually properties.
             //
 
-            while ((line = reader.readLine()) != null) {
-                originalLine = line;
-                line = line.trim();
-                lineNum++;
+            while (lexer.nextLine()) {
+                line = lexer.getTrimmedLine();
+                lineNum = lexer.getLineNum();
 
                 if (line.length() == 0) {
                     continue;
@@ -256,9 +268,8 @@ public class ApexDoc {
                 // ignore anything after // style comments. this allows hiding
                 // of tokens from ApexDoc. However, don't ignore when line
                 // doesn't start with //, we want to preserver @example comments
-                int offset = line.indexOf("//");
-                if (offset == 0) {
-                    line = line.substring(0, offset);
+                if (line.startsWith("//")) {
+                    line = "";
                 }
 
                 // gather up our comments
@@ -298,8 +309,8 @@ public class ApexDoc {
                 }
 
                 // keep track of our nesting so we know which class we are in
-                int openCurlies = Utils.countChars(line, '{');
-                int closeCurlies = Utils.countChars(line, '}');
+                int openCurlies = lexer.getOpenCurlies();
+                int closeCurlies = lexer.getCloseCurlies();
                 nestedCurlyBraceDepth += openCurlies;
                 nestedCurlyBraceDepth -= closeCurlies;
 
@@ -312,7 +323,7 @@ public class ApexDoc {
                 }
 
                 // ignore anything after an =. this avoids confusing properties with methods.
-                offset = line.indexOf("=");
+                int offset = line.indexOf("=");
                 if (offset > -1) {
                     line = line.substring(0, offset);
                 }
@@ -326,18 +337,25 @@ public class ApexDoc {
 
                 // skip lines not dealing with scope that are not inner
                 // classes, interface methods, or (assumed to be) @isTest
-                if (Utils.shouldSkipLine(line, cModel)) {
+                if (Utils.shouldSkipLine(line, cModel, config.getScopes())) {
+                    // a top level class outside the documented scopes, e.g. a private
+                    // @IsTest class, documents nothing. Its members mustn't be added to a
+                    // class which doesn't exist, nor its enums taken for top level enums.
+                    if (cModel == null && cModels.isEmpty() && Utils.isClassOrInterface(line)) {
+                        return null;
+                    }
+
                     // preserve skipped line, it may be an annotation
                     // line for a class, method, prop, or enum (though
                     // enums support few and are unlikely to have any)
-                    previousLine = originalLine;
+                    previousLine = lexer.getLine();
                     continue;
                 }
 
                 // look for a class.
                 if (Utils.isClassOrInterface(line)) {
                     // create the new class
-                    ClassModel cModelNew = new ClassModel(cModelParent, comments, line, lineNum);
+                    ClassModel cModelNew = new ClassModel(cModelParent, comments, line, lineNum, config);
                     Utils.parseAnnotations(previousLine, line, cModelNew);
                     comments.clear();
 
@@ -361,7 +379,7 @@ public class ApexDoc {
 
                 // look for an enum
                 if (Utils.isEnum(line)) {
-                    EnumModel eModel = new EnumModel(comments, line, lineNum);
+                    EnumModel eModel = new EnumModel(comments, line, lineNum, config);
                     Utils.parseAnnotations(previousLine, line, eModel);
                     comments.clear();
 
@@ -383,9 +401,10 @@ public class ApexDoc {
                         values.addAll(Arrays.asList(line.trim().split(",")));
 
                         // handle each additional line of enum
-                        while (!line.contains("}")) {
-                            line = reader.readLine();
-                            lineNum++;
+                        while (!line.contains("}") && lexer.nextLine()) {
+                            line = lexer.getLine();
+                            lineNum = lexer.getLineNum();
+                            nestedCurlyBraceDepth += lexer.getOpenCurlies() - lexer.getCloseCurlies();
                             // in case opening curly is on the second line
                             // also handle replacing closing curly for last line
                             String valLine = line.replace("{", "");
@@ -395,22 +414,22 @@ public class ApexDoc {
                     }
 
                     // add all enum values to model
-                    values.stream().forEach(value -> {
+                    ArrayList<String> trimmedValues = new ArrayList<String>(values.size());
+                    for (String value : values) {
                         if (!value.trim().isEmpty()) {
-                            eModel.getValues().add(value.trim());
+                            trimmedValues.add(value.trim());
                         }
-                    });
+                    }
+                    eModel.setValues(trimmedValues);
 
                     // if no class models have been created, and we see an
                     // enum, we must be dealing with a class level enum and
                     // should return early, otherwise we're dealing with
                     // an inner enum and should add to our class model.
                     if (cModel == null && cModels.size() == 0) {
-                        reader.close();
-                        inputStream.close();
                         return eModel;
                     } else {
-                        cModel.getEnums().add(eModel);
+                        cModel.addEnum(eModel);
                         previousLine = null;
                         continue;
                     }
@@ -421,14 +440,15 @@ public class ApexDoc {
                     int startingLine = lineNum;
 
                     // deal with a method over multiple lines.
-                    while (!line.contains(")")) {
-                        line += reader.readLine();
-                        lineNum++;
+                    while (!line.contains(")") && lexer.nextLine()) {
+                        line += lexer.getLine();
+                        lineNum = lexer.getLineNum();
+                        nestedCurlyBraceDepth += lexer.getOpenCurlies() - lexer.getCloseCurlies();
                     }
 
-                    MethodModel mModel = new MethodModel(comments, line, startingLine);
+                    MethodModel mModel = new MethodModel(comments, line, startingLine, config);
                     Utils.parseAnnotations(previousLine, line, mModel);
-                    cModel.getMethods().add(mModel);
+                    cModel.addMethod(mModel);
                     comments.clear();
                     previousLine = null;
                     continue;
@@ -446,17 +466,19 @@ public class ApexDoc {
                 }
 
                 // must be a property
-                PropertyModel pModel = new PropertyModel(comments, line, lineNum);
+                PropertyModel pModel = new PropertyModel(comments, line, lineNum, config);
                 Utils.parseAnnotations(previousLine, line, pModel);
-                cModel.getProperties().add(pModel);
+                cModel.addProperty(pModel);
                 comments.clear();
                 previousLine = null;
                 continue;
             }
 
-            // Close the input stream
-            inputStream.close();
-            // we only want to return the parent class
+            // we only want to return the parent class, without
+            // the spare capacity its lists grew while parsing
+            if (cModelParent != null) {
+                cModelParent.trimToSize();
+            }
             return cModelParent;
         } catch (Exception ex) { // Catch exception if any
             Utils.log(ex);
@@ -465,13 +487,22 @@ public class ApexDoc {
     }
 
     // argument guards
-    private static String sourceDirectoryGuard(String path) throws IllegalArgumentException {
-        if (path != null && new File(path).exists()) {
-            return path;
+    private static String sourceDirectoryGuard(String paths) throws IllegalArgumentException {
+        boolean isValid = paths != null && paths.replace(",", "").trim().length() > 0;
+        if (isValid) {
+            for (String path : paths.split(",")) {
+                if (!path.trim().isEmpty() && !new File(path.trim()).exists()) {
+                    isValid = false;
+                }
+            }
+        }
+
+        if (isValid) {
+            return paths;
         } else {
             throw new IllegalArgumentException(
-                "Value for <source_directory> argument: '" + path +
-                "' is invalid. Please provide a valid diectory."
+                "Value for <source_directory> argument: '" + paths +
+                "' is invalid. Please provide a valid directory, or a comma separated list of valid directories."
             );
         }
     }
@@ -529,6 +560,76 @@ public class ApexDoc {
         return scopeRegister;
     }
 
+    private static int threadsGuard(String threads) throws IllegalArgumentException {
+        try {
+            int value = Integer.parseInt(threads);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the exception below
+        }
+
+        throw new IllegalArgumentException(
+            "Value for <threads> argument: '" + threads +
+            "' is invalid. Please provide a positive whole number."
+        );
+    }
+
+    private static int lazyDetailsGuard(String methods) throws IllegalArgumentException {
+        try {
+            int value = Integer.parseInt(methods);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the exception below
+        }
+
+        throw new IllegalArgumentException(
+            "Value for <methods> argument: '" + methods +
+            "' is invalid. Please provide a positive whole number."
+        );
+    }
+
+    private static int portGuard(String port) throws IllegalArgumentException {
+        try {
+            int value = Integer.parseInt(port);
+            if (value > 0 && value <= 65535) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the exception below
+        }
+
+        throw new IllegalArgumentException(
+            "Value for <port> argument: '" + port +
+            "' is invalid. Please provide a port number between 1 and 65535."
+        );
+    }
+
+    private static String metricsGuard(String path) throws IllegalArgumentException {
+        if (path != null && path.trim().length() > 0 && !new File(path).isDirectory()) {
+            return path.trim();
+        } else {
+            throw new IllegalArgumentException(
+                "Value for <metrics_file> argument: '" + path +
+                "' is invalid. Please provide the path of the file to write the report to."
+            );
+        }
+    }
+
+    private static String archiveGuard(String path) throws IllegalArgumentException {
+        if (path != null && ArchiveSink.isSupported(path.trim()) && !new File(path.trim()).isDirectory()) {
+            return path.trim();
+        } else {
+            throw new IllegalArgumentException(
+                "Value for <archive_file> argument: '" + path +
+                "' is invalid. Please provide the path of a .zip, .tar, .tar.gz or .tgz file to write the documentation to."
+            );
+        }
+    }
+
     private static String sortOrderGuard(String sortOrder) throws IllegalArgumentException {
         if (sortOrder != null && (sortOrder.equalsIgnoreCase(ORDER_LOGICAL) || sortOrder.equalsIgnoreCase(ORDER_ALPHA))) {
             return sortOrder.toLowerCase();
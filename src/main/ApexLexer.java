@@ -0,0 +1,158 @@
+package main;
+
+import java.nio.Buffer;
+import java.nio.CharBuffer;
+
+/**
+ * @description A single pass, character level scanner over Apex source. It splits the
+ * source into lines exactly as BufferedReader.readLine does (on \n, \r or \r\n), finds
+ * each line's trimmed bounds, and counts the curly braces on each line which are code.
+ * Braces inside string literals, // comments and block comments are not counted. Block
+ * comment state carries across lines; string literal state does not, since Apex string
+ * literals cannot span lines. Line strings are only created when asked for. The lexer
+ * scans the decoded source in place, so the buffer must not change until it's done.
+ */
+public class ApexLexer {
+    private final char[] source;
+    private final int end; // index just past the last character of the source
+    private int position;
+    private boolean inBlockComment = false;
+
+    // state of the current line
+    private int lineNum = 0;
+    private int lineStart;
+    private int lineEnd;
+    private int trimStart;
+    private int trimEnd;
+    private int openCurlies;
+    private int closeCurlies;
+    private String line;
+    private String trimmedLine;
+
+    public ApexLexer(CharBuffer source) {
+        if (!source.hasArray()) {
+            source = CharBuffer.allocate(source.remaining()).put(source.duplicate());
+            ((Buffer) source).flip();
+        }
+        this.source = source.array();
+        this.position = source.arrayOffset() + source.position();
+        this.end = source.arrayOffset() + source.limit();
+    }
+
+    /**
+     * @description advances to the next line.
+     * @return false once there are no more lines
+     */
+    public boolean nextLine() {
+        if (position >= end) {
+            return false;
+        }
+
+        lineNum++;
+        lineStart = position;
+        trimStart = -1;
+        trimEnd = -1;
+        openCurlies = 0;
+        closeCurlies = 0;
+        line = null;
+        trimmedLine = null;
+
+        boolean inString = false, inLineComment = false;
+        int i = position;
+        for (; i < end; i++) {
+            char c = source[i];
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+
+            if (c > ' ') {
+                if (trimStart == -1) trimStart = i;
+                trimEnd = i + 1;
+            }
+
+            if (inLineComment) {
+                continue;
+            }
+
+            if (inBlockComment) {
+                if (c == '*' && peek(i) == '/') {
+                    inBlockComment = false;
+                    trimEnd = ++i + 1;
+                }
+                continue;
+            }
+
+            if (inString) {
+                if (c == '\\' && isCharOnLine(i + 1)) {
+                    // skip the escaped character, which may be a quote
+                    if (source[++i] > ' ') trimEnd = i + 1;
+                } else if (c == '\'') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            if (c == '\'') {
+                inString = true;
+            } else if (c == '/' && peek(i) == '/') {
+                inLineComment = true;
+                trimEnd = ++i + 1;
+            } else if (c == '/' && peek(i) == '*') {
+                inBlockComment = true;
+                trimEnd = ++i + 1;
+            } else if (c == '{') {
+                openCurlies++;
+            } else if (c == '}') {
+                closeCurlies++;
+            }
+        }
+
+        lineEnd = i;
+
+        // consume the line terminator, treating \r\n as one
+        if (i < end) {
+            i += source[i] == '\r' && i + 1 < end && source[i + 1] == '\n' ? 2 : 1;
+        }
+
+        position = i;
+        return true;
+    }
+
+    private char peek(int i) {
+        return isCharOnLine(i + 1) ? source[i + 1] : '\0';
+    }
+
+    private boolean isCharOnLine(int i) {
+        return i < end && source[i] != '\n' && source[i] != '\r';
+    }
+
+    // the current line, untrimmed and without its terminator
+    public String getLine() {
+        if (line == null) {
+            line = new String(source, lineStart, lineEnd - lineStart);
+        }
+        return line;
+    }
+
+    // the current line, as String.trim() would return it
+    public String getTrimmedLine() {
+        if (trimmedLine == null) {
+            trimmedLine = trimStart == -1 ? "" : new String(source, trimStart, trimEnd - trimStart);
+        }
+        return trimmedLine;
+    }
+
+    public int getLineNum() {
+        return lineNum;
+    }
+
+    // number of '{' on the current line, outside of strings and comments
+    public int getOpenCurlies() {
+        return openCurlies;
+    }
+
+    // number of '}' on the current line, outside of strings and comments
+    public int getCloseCurlies() {
+        return closeCurlies;
+    }
+}
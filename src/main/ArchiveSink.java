@@ -0,0 +1,203 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * @description Writes every generated file into a single archive, in one pass, as the files
+ * are generated. The whole site then costs one file create instead of one per page, and
+ * needs no separate step to archive it for upload. A file is collected in memory until it
+ * is closed, then prepared, e.g. compressed, on the thread which wrote it, so files written
+ * concurrently are compressed concurrently. Only appending the prepared entry to the archive
+ * happens one file at a time, in the order files finish. Entries can't be deleted, so an
+ * archive is always written from scratch.
+ */
+public abstract class ArchiveSink implements OutputSink {
+    public static final String ZIP = ".zip";
+    public static final String TAR = ".tar";
+    public static final String TAR_GZ = ".tar.gz";
+    public static final String TGZ = ".tgz";
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final File file;
+    protected final OutputStream out;
+    // the modification time given to every entry, in milliseconds
+    protected final long time = System.currentTimeMillis();
+
+    // each thread collects its files in its own buffer, reused from file to file
+    private final ThreadLocal<EntryBuffer> buffers = ThreadLocal.withInitial(EntryBuffer::new);
+
+    // a file's contents, collected until it's closed
+    private class EntryBuffer extends Bytes {
+        private String fileName;
+
+        @Override
+        public void close() throws IOException {
+            prepare(fileName, buf, count);
+            synchronized (ArchiveSink.this) {
+                append(fileName, buf, count);
+            }
+            shrink();
+        }
+
+        // drops the file's contents, without adding an entry for it
+        private void discard() {
+            shrink();
+        }
+    }
+
+    // a reusable ByteArrayOutputStream whose contents can be read without copying them
+    protected static class Bytes extends ByteArrayOutputStream {
+        protected Bytes() {
+            super(BUFFER_SIZE);
+        }
+
+        protected byte[] getBuffer() {
+            return buf;
+        }
+
+        // resets the buffer, without holding on to the largest contents it ever held
+        protected void shrink() {
+            if (buf.length > BUFFER_SIZE * 4) {
+                buf = new byte[BUFFER_SIZE];
+            }
+            reset();
+        }
+    }
+
+    /**
+     * @description raw deflate compression, reused from entry to entry by a single thread.
+     * Records the CRC-32 and length of what it compresses, which zip and gzip both need.
+     */
+    protected static class Deflation {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+        private final Bytes compressed = new Bytes();
+        private long length;
+
+        protected void begin() {
+            deflater.reset();
+            crc.reset();
+            compressed.shrink();
+            length = 0;
+        }
+
+        protected void deflate(byte[] bytes, int offset, int count) {
+            crc.update(bytes, offset, count);
+            length += count;
+            deflater.setInput(bytes, offset, count);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+        }
+
+        // records the CRC-32 and length of bytes stored as they are, without compressing them
+        protected void checksum(byte[] bytes, int offset, int count) {
+            crc.update(bytes, offset, count);
+            length += count;
+        }
+
+        protected void finish() {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            int count = deflater.deflate(chunk);
+            compressed.write(chunk, 0, count);
+        }
+
+        protected long getCrc() {
+            return crc.getValue();
+        }
+
+        // the number of bytes compressed
+        protected long getLength() {
+            return length;
+        }
+
+        protected Bytes getCompressed() {
+            return compressed;
+        }
+    }
+
+    protected ArchiveSink(String path) throws IOException {
+        this.file = new File(path).getAbsoluteFile();
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        this.out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+    }
+
+    /**
+     * @description opens an archive for writing, replacing any file at its path.
+     * @param path the archive's path. Its extension decides the format: .zip, .tar, or
+     * .tar.gz or .tgz for a gzip compressed tar.
+     * @throws IllegalArgumentException if the extension isn't one of these
+     */
+    public static ArchiveSink create(String path) throws IOException {
+        String lowerCase = path.toLowerCase();
+        if (lowerCase.endsWith(ZIP)) {
+            return new ZipSink(path);
+        } else if (lowerCase.endsWith(TAR)) {
+            return new TarSink(path, false);
+        } else if (lowerCase.endsWith(TAR_GZ) || lowerCase.endsWith(TGZ)) {
+            return new TarSink(path, true);
+        }
+        throw new IllegalArgumentException("Archive '" + path + "' must end with .zip, .tar, .tar.gz or .tgz.");
+    }
+
+    // whether create can write an archive to a path
+    public static boolean isSupported(String path) {
+        String lowerCase = path.toLowerCase();
+        return lowerCase.endsWith(ZIP) || lowerCase.endsWith(TAR)
+            || lowerCase.endsWith(TAR_GZ) || lowerCase.endsWith(TGZ);
+    }
+
+    public OutputStream open(String fileName) {
+        EntryBuffer buffer = buffers.get();
+        buffer.fileName = fileName;
+        return buffer;
+    }
+
+    public void discard(String fileName, OutputStream stream) {
+        ((EntryBuffer) stream).discard();
+    }
+
+    public boolean delete(String fileName) {
+        // an archive is written from scratch, so a file from an earlier generation is never in it
+        return false;
+    }
+
+    // entries aren't files of their own
+    public File getFile(String fileName) {
+        return null;
+    }
+
+    // an archive without its index, or end of archive marker, is of no use, so it's deleted
+    public synchronized void abort() throws IOException {
+        try {
+            out.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * @description prepares a file's entry on the thread which wrote the file, concurrently
+     * with other threads, keeping what append needs in a thread local.
+     */
+    protected abstract void prepare(String fileName, byte[] contents, int length) throws IOException;
+
+    // appends the entry the calling thread just prepared to the archive, one thread at a time
+    protected abstract void append(String fileName, byte[] contents, int length) throws IOException;
+}
@@ -1,8 +1,15 @@
 package main;
 
+import main.models.TopLevelModel;
+import java.util.ArrayList;
+
 public class ClassGroup {
+    // the bucket group for all models without a @group
+    public static final String MISCELLANEOUS = "Miscellaneous";
+
     private String name;
     private String contentSource;
+    private ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
 
     public ClassGroup(String name, String contentSource) {
         this.name = name;
@@ -25,6 +32,15 @@ public class ClassGroup {
         this.contentSource = contentSource;
     }
 
+    // the group's models, in name order, as they are listed in the menu
+    public ArrayList<TopLevelModel> getModels() {
+        return models;
+    }
+
+    public void addModel(TopLevelModel model) {
+        models.add(model);
+    }
+
     public String getContentFilename() {
         if (contentSource != null) {
             int idx1 = contentSource.lastIndexOf("/");
@@ -0,0 +1,140 @@
+package main;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @description Writes a gzip compressed copy of generated files, e.g. index.html.gz next to
+ * index.html, for static hosts which serve precompressed files rather than compressing
+ * them on every request. Files are compressed on a pool of their own, so compression
+ * overlaps rendering. A compressed copy which is already up to date isn't rewritten: the
+ * gzip trailer records the CRC-32 and length of the uncompressed contents, so a file is
+ * only checksummed, never decompressed, to tell whether it changed.
+ */
+public class Compressor {
+    public static final String EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // a gzip header is at least 10 bytes and its trailer 8
+    private static final int MIN_LENGTH = 18;
+
+    private final ExecutorService pool;
+    private final ArrayList<Future<Boolean>> pending = new ArrayList<Future<Boolean>>();
+    private final Metrics metrics;
+
+    // each thread copies through its own buffer, reused from file to file
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    /**
+     * @param threads the number of files to compress concurrently
+     * @param metrics where to record the time spent compressing
+     */
+    public Compressor(int threads, Metrics metrics) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        this.metrics = metrics;
+    }
+
+    /**
+     * @description compresses a file in the background, unless its compressed copy is
+     * already up to date.
+     * @param file the file, which must be closed, and not change until finish returns
+     */
+    public synchronized void submit(File file) {
+        pending.add(pool.submit(() -> compress(file)));
+    }
+
+    /**
+     * @description waits for every file submitted to be compressed, then stops the pool.
+     * @return the number of files compressed. The rest were already up to date.
+     */
+    public int finish() throws IOException {
+        int compressed = 0;
+        try {
+            for (Future<Boolean> future : pending) {
+                if (future.get()) compressed++;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Compression was interrupted.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException("Compression failed: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return compressed;
+    }
+
+    // stops the pool without waiting, e.g. when writing failed
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private boolean compress(File file) throws IOException {
+        Metrics.Sample sample = metrics.begin();
+        File compressed = new File(file.getPath() + EXTENSION);
+        boolean isUpToDate = isUpToDate(compressed, file);
+
+        if (!isUpToDate) {
+            byte[] buffer = buffers.get();
+            try (InputStream in = new FileInputStream(file);
+                    OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed), BUFFER_SIZE)) {
+                int bytesRead;
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, bytesRead);
+                }
+            }
+        }
+
+        metrics.end(Metrics.COMPRESS, sample);
+        return !isUpToDate;
+    }
+
+    // whether the compressed copy's trailer matches the file's length and checksum
+    private boolean isUpToDate(File compressed, File file) throws IOException {
+        if (!compressed.exists() || compressed.length() < MIN_LENGTH) {
+            return false;
+        }
+
+        byte[] trailer = new byte[8];
+        try (RandomAccessFile in = new RandomAccessFile(compressed, "r")) {
+            in.seek(in.length() - trailer.length);
+            in.readFully(trailer);
+        }
+
+        // both are little endian, and the length is modulo 2^32
+        if (readInt(trailer, 4) != (file.length() & 0xFFFFFFFFL)) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        byte[] buffer = buffers.get();
+        try (InputStream in = new FileInputStream(file)) {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, bytesRead);
+            }
+        }
+        return readInt(trailer, 0) == crc.getValue();
+    }
+
+    private static long readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+            | (bytes[offset + 1] & 0xFFL) << 8
+            | (bytes[offset + 2] & 0xFFL) << 16
+            | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+}
@@ -0,0 +1,442 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * @description Writes a synthetic Apex corpus for scale testing: N top level classes and
+ * enums, with properties, inner enums, inner classes and interfaces, overloaded and
+ * multi-line methods, annotations, and @see and @group tokens which link to other types
+ * in the corpus. Sizes are drawn from configurable ranges, skewed towards the low end so
+ * that, as in a real org, most classes are small and a few are large. The corpus is
+ * deterministic: the same options and seed always produce the same files.
+ *
+ * Run from the command line with:
+ * java -cp ApexDoc2.jar main.CorpusGenerator -t <target_directory> -n <classes>
+ */
+public class CorpusGenerator {
+    private static final String[] GROUPS = {
+        "Core Framework", "Services", "Selectors", "Domain", "Triggers", "Utilities", "Integrations" };
+    private static final String[] TYPES = {
+        "String", "Integer", "Boolean", "Id", "Decimal", "Datetime", "List<Account>",
+        "Set<Id>", "Map<Id, Contact>", "Map<String, List<Opportunity>>" };
+    private static final String[] SCOPES = { "public", "public", "public", "global", "private", "protected" };
+
+    private int classes;
+    private long seed = 1;
+    private int[] methods = { 2, 20 };
+    private int[] properties = { 0, 10 };
+    private int[] innerClasses = { 0, 3 };
+    private int[] enums = { 0, 2 };
+
+    // the sizes of each type, decided up front so that @see tokens only link to members which exist
+    private Shape[] shapes;
+
+    private static class Shape {
+        boolean isEnum;
+        int methods;
+        int properties;
+        int innerClasses;
+        int enums;
+    }
+
+    public CorpusGenerator(int classes) {
+        this.classes = classes;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setMethods(int min, int max) {
+        this.methods = new int[] { min, max };
+    }
+
+    public void setProperties(int min, int max) {
+        this.properties = new int[] { min, max };
+    }
+
+    public void setInnerClasses(int min, int max) {
+        this.innerClasses = new int[] { min, max };
+    }
+
+    public void setEnums(int min, int max) {
+        this.enums = new int[] { min, max };
+    }
+
+    // public entry point when called from the command line.
+    public static void main(String[] args) {
+        try {
+            String targetDirectory = null;
+            CorpusGenerator generator = null;
+            long seed = 1;
+            int[] methods = null, properties = null, innerClasses = null, enums = null;
+
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equalsIgnoreCase("-t")) {
+                    targetDirectory = args[++i];
+                } else if (args[i].equalsIgnoreCase("-n")) {
+                    generator = new CorpusGenerator(countGuard(args[++i]));
+                } else if (args[i].equalsIgnoreCase("-r")) {
+                    seed = seedGuard(args[++i]);
+                } else if (args[i].equalsIgnoreCase("--methods")) {
+                    methods = rangeGuard("methods", args[++i]);
+                } else if (args[i].equalsIgnoreCase("--properties")) {
+                    properties = rangeGuard("properties", args[++i]);
+                } else if (args[i].equalsIgnoreCase("--inner")) {
+                    innerClasses = rangeGuard("inner", args[++i]);
+                } else if (args[i].equalsIgnoreCase("--enums")) {
+                    enums = rangeGuard("enums", args[++i]);
+                } else {
+                    printHelp();
+                    System.exit(-1);
+                }
+            }
+
+            if (targetDirectory == null || generator == null) {
+                printHelp();
+                System.exit(-1);
+            }
+
+            generator.setSeed(seed);
+            if (methods != null) generator.setMethods(methods[0], methods[1]);
+            if (properties != null) generator.setProperties(properties[0], properties[1]);
+            if (innerClasses != null) generator.setInnerClasses(innerClasses[0], innerClasses[1]);
+            if (enums != null) generator.setEnums(enums[0], enums[1]);
+
+            ArrayList<File> files = generator.generate(new File(targetDirectory));
+            Utils.log(files.size() + " Apex files generated in " + targetDirectory);
+        } catch (Exception ex) {
+            Utils.log(ex);
+            printHelp();
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * @description writes the corpus to the given directory, creating it if needed.
+     * @param directory the directory to write the .cls files to
+     * @return the files written, in name order
+     */
+    public ArrayList<File> generate(File directory) throws IOException {
+        directory.mkdirs();
+
+        Random random = new Random(seed);
+        shapes = new Shape[classes];
+        for (int i = 0; i < classes; i++) {
+            Shape shape = new Shape();
+            // roughly one in ten files is a top level enum
+            shape.isEnum = classes > 1 && random.nextInt(10) == 0;
+            shape.methods = pick(random, methods);
+            shape.properties = pick(random, properties);
+            shape.innerClasses = pick(random, innerClasses);
+            shape.enums = pick(random, enums);
+            shapes[i] = shape;
+        }
+
+        ArrayList<File> files = new ArrayList<File>();
+        for (int i = 0; i < classes; i++) {
+            File file = new File(directory, typeName(i) + ".cls");
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)))) {
+                if (shapes[i].isEnum) {
+                    writeEnum(out, i, random);
+                } else {
+                    writeClass(out, i, random);
+                }
+            }
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    // a number in the range, skewed towards its minimum
+    private static int pick(Random random, int[] range) {
+        return range[0] + (int) ((range[1] - range[0] + 1) * random.nextDouble() * random.nextDouble());
+    }
+
+    private String typeName(int i) {
+        return String.format(shapes[i].isEnum ? "Enum%06d" : "Class%06d", i);
+    }
+
+    private static String methodName(int m) {
+        // the first two methods of every class are overloads of doWork
+        return m < 2 ? "doWork" : "method" + m;
+    }
+
+    // a comma separated @see token value which only links to types and members that exist
+    private String seeLinks(Random random, int self) {
+        ArrayList<String> links = new ArrayList<String>();
+        for (int n = 1 + random.nextInt(3); n > 0; n--) {
+            int i = random.nextInt(classes);
+            Shape shape = shapes[i];
+            String name = typeName(i);
+            int kind = random.nextInt(6);
+            if (shape.isEnum || kind == 0) {
+                links.add(name);
+            } else if (kind == 1 && shape.methods > 1) {
+                links.add(name + ".doWork[1]");
+            } else if (kind == 2 && shape.methods > 0) {
+                links.add(name + "." + methodName(random.nextInt(shape.methods)));
+            } else if (kind == 3 && shape.innerClasses > 0) {
+                links.add(name + ".Inner" + random.nextInt(shape.innerClasses) + ".run");
+            } else if (kind == 4) {
+                links.add("https://example.com/docs/" + name);
+            } else {
+                links.add("[" + name + " Guide](https://example.com/guides/" + name + ")");
+            }
+        }
+        if (shapes[self].methods > 0 && !shapes[self].isEnum) {
+            links.add(typeName(self) + ".doWork");
+        }
+        return String.join(", ", links);
+    }
+
+    private void writeTypeComment(Writer out, int i, Random random, String indent) throws IOException {
+        String name = typeName(i);
+        out.write(indent + "/**\n");
+        out.write(indent + "* @author Corpus Generator\n");
+        out.write(indent + "* @date 2020-01-" + String.format("%02d", 1 + i % 28) + "\n");
+        out.write(indent + "* @group " + GROUPS[random.nextInt(GROUPS.length)] + "\n");
+        out.write(indent + "* @see " + seeLinks(random, i) + "\n");
+        out.write(indent + "* @description " + name + " is a synthetic type. It uses `" + typeName(random.nextInt(classes))
+            + "` and `Database.query` inline,<br>\n");
+        out.write(indent + "* and describes itself over more than one line, with <b>markup</b> & \"quotes\".\n");
+        if (random.nextInt(8) == 0) {
+            out.write(indent + "* @deprecated use " + typeName(random.nextInt(classes)) + " instead\n");
+        }
+        out.write(indent + "* @example\n");
+        out.write(indent + "* " + name + " instance = new " + name + "();\n");
+        out.write(indent + "* // explain the example\n");
+        out.write(indent + "*\n");
+        out.write(indent + "* instance.doWork('value');\n");
+        out.write(indent + "*/\n");
+    }
+
+    private void writeEnum(Writer out, int i, Random random) throws IOException {
+        writeTypeComment(out, i, random, "");
+        out.write("public enum " + typeName(i) + " {\n");
+        int values = 2 + random.nextInt(8);
+        for (int v = 0; v < values; v++) {
+            out.write("    VALUE_" + v + (v < values - 1 ? ",\n" : "\n"));
+        }
+        out.write("}\n");
+    }
+
+    private void writeClass(Writer out, int i, Random random) throws IOException {
+        Shape shape = shapes[i];
+        String name = typeName(i);
+
+        writeTypeComment(out, i, random, "");
+        if (random.nextInt(12) == 0) {
+            out.write("@IsTest\n");
+            out.write("private class " + name + " {\n");
+        } else if (random.nextInt(4) == 0) {
+            out.write("global virtual with sharing class " + name + " implements Schedulable {\n");
+        } else {
+            out.write("public with sharing class " + name + " {\n");
+        }
+
+        for (int p = 0; p < shape.properties; p++) {
+            writeProperty(out, p, random, "    ");
+        }
+
+        for (int e = 0; e < shape.enums; e++) {
+            writeInnerEnum(out, e, random, "    ");
+        }
+
+        for (int m = 0; m < shape.methods; m++) {
+            writeMethod(out, i, m, random, "    ");
+        }
+
+        for (int c = 0; c < shape.innerClasses; c++) {
+            writeInnerClass(out, i, c, random);
+        }
+
+        if (random.nextInt(5) == 0) {
+            out.write("    /** @description something which can be done */\n");
+            out.write("    public interface Doer {\n");
+            out.write("        /** @description does it */\n");
+            out.write("        void doIt(String value);\n");
+            out.write("    }\n\n");
+        }
+
+        out.write("}\n");
+    }
+
+    private void writeProperty(Writer out, int p, Random random, String indent) throws IOException {
+        String type = TYPES[random.nextInt(TYPES.length)];
+        if (random.nextInt(3) > 0) {
+            out.write(indent + "/** @description property " + p + " of type `" + type + "` */\n");
+        }
+        if (random.nextInt(4) == 0) {
+            out.write(indent + "@AuraEnabled\n");
+        }
+
+        String scope = SCOPES[random.nextInt(SCOPES.length)];
+        switch (random.nextInt(4)) {
+            case 0:
+                out.write(indent + scope + " " + type + " prop" + p + " { get; set; }\n");
+                break;
+            case 1:
+                out.write(indent + scope + " static " + type + " prop" + p + " = null;\n");
+                break;
+            case 2:
+                out.write(indent + scope + " " + type + " prop" + p + " {\n");
+                out.write(indent + "    get { return null; }\n");
+                out.write(indent + "    private set;\n");
+                out.write(indent + "}\n");
+                break;
+            default:
+                out.write(indent + "@TestVisible " + scope + " " + type + " prop" + p + ";\n");
+        }
+    }
+
+    private void writeInnerEnum(Writer out, int e, Random random, String indent) throws IOException {
+        out.write(indent + "/** @description inner enum " + e + " */\n");
+        if (random.nextBoolean()) {
+            out.write(indent + "public enum State" + e + " { NEW, ACTIVE, CLOSED }\n\n");
+        } else {
+            out.write(indent + "public enum Level" + e + " {\n");
+            out.write(indent + "    LOW,\n");
+            out.write(indent + "    MEDIUM, HIGH\n");
+            out.write(indent + "}\n\n");
+        }
+    }
+
+    private void writeMethod(Writer out, int i, int m, Random random, String indent) throws IOException {
+        String name = methodName(m);
+        String type = random.nextInt(3) == 0 ? "void" : TYPES[random.nextInt(TYPES.length)];
+        // doWork's two overloads take one and two parameters
+        int params = m == 0 ? 1 : m == 1 ? 2 : random.nextInt(4);
+
+        out.write(indent + "/**\n");
+        out.write(indent + "* @description " + name + " does some work, e.g. `" + name + "(null)`,\n");
+        out.write(indent + "* and has {braces} in its comment.\n");
+        for (int p = 0; p < params; p++) {
+            out.write(indent + "* @param param" + p + " the " + p + " parameter\n");
+        }
+        if (!type.equals("void")) {
+            out.write(indent + "* @return a " + type + "\n");
+        }
+        if (random.nextInt(4) == 0) {
+            out.write(indent + "* @exception IllegalArgumentException when the input is bad\n");
+        }
+        if (random.nextBoolean()) {
+            out.write(indent + "* @see " + seeLinks(random, i) + "\n");
+        }
+        out.write(indent + "*/\n");
+
+        if (random.nextInt(4) == 0) {
+            out.write(indent + (random.nextBoolean() ? "@AuraEnabled(cacheable=true)\n" : "@TestVisible\n"));
+        }
+
+        String scope = random.nextInt(6) == 0 ? "" : SCOPES[random.nextInt(SCOPES.length)] + " ";
+        String modifier = random.nextInt(3) == 0 ? "static " : "";
+        String signature = indent + scope + modifier + type + " " + name + "(";
+        if (params > 1 && random.nextBoolean()) {
+            // a multi-line signature, with the opening brace on the last line
+            out.write(signature);
+            for (int p = 0; p < params; p++) {
+                out.write((p > 0 ? indent + "    " : "") + TYPES[(m + p) % TYPES.length] + " param" + p
+                    + (p < params - 1 ? ",\n" : ") {\n"));
+            }
+        } else {
+            out.write(signature);
+            for (int p = 0; p < params; p++) {
+                out.write((p > 0 ? ", " : "") + TYPES[(m + p) % TYPES.length] + " param" + p);
+            }
+            out.write(") {\n");
+        }
+
+        out.write(indent + "    String s = 'a string with a { brace';\n");
+        out.write(indent + "    // a comment with a } brace\n");
+        out.write(indent + "    for (Integer i = 0; i < 10; i++) {\n");
+        out.write(indent + "        if (i > 5) { break; }\n");
+        out.write(indent + "    }\n");
+        if (!type.equals("void")) {
+            out.write(indent + "    return null;\n");
+        }
+        out.write(indent + "}\n\n");
+    }
+
+    private void writeInnerClass(Writer out, int i, int c, Random random) throws IOException {
+        out.write("    /**\n");
+        out.write("    * @description inner class " + c + "\n");
+        out.write("    * @see " + seeLinks(random, i) + "\n");
+        out.write("    */\n");
+        out.write("    public class Inner" + c + " {\n");
+        writeProperty(out, 0, random, "        ");
+        out.write("        /** @description runs the inner class */\n");
+        out.write("        public void run() {\n");
+        out.write("            System.debug('{');\n");
+        out.write("        }\n");
+        out.write("    }\n\n");
+    }
+
+    public static void printHelp() {
+        Utils.log("\nCorpusGenerator - writes a synthetic Apex corpus for scale testing ApexDoc2.\n");
+        Utils.log("java -cp ApexDoc2.jar main.CorpusGenerator -t <target_directory> -n <classes> [-r <seed>] [--methods <min-max>] [--properties <min-max>] [--inner <min-max>] [--enums <min-max>]\n");
+        Utils.log("(T)arget Directory  - The folder to write the .cls files to.");
+        Utils.log("Classes (N)         - The number of top level classes and enums to write.");
+        Utils.log("Seed (R)            - Optional. The random seed. The same seed and options always produce the same corpus. Defaults to 1.");
+        Utils.log("--methods           - Optional. The range of methods per class. Defaults to 2-20.");
+        Utils.log("--properties        - Optional. The range of properties per class. Defaults to 0-10.");
+        Utils.log("--inner             - Optional. The range of inner classes per class. Defaults to 0-3.");
+        Utils.log("--enums             - Optional. The range of inner enums per class. Defaults to 0-2.");
+    }
+
+    // argument guards
+    private static int countGuard(String count) throws IllegalArgumentException {
+        try {
+            int value = Integer.parseInt(count);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the exception below
+        }
+
+        throw new IllegalArgumentException(
+            "Value for <classes> argument: '" + count +
+            "' is invalid. Please provide a positive whole number."
+        );
+    }
+
+    private static long seedGuard(String seed) throws IllegalArgumentException {
+        try {
+            return Long.parseLong(seed);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(
+                "Value for <seed> argument: '" + seed +
+                "' is invalid. Please provide a whole number."
+            );
+        }
+    }
+
+    private static int[] rangeGuard(String name, String range) throws IllegalArgumentException {
+        try {
+            String[] bounds = range.split("-");
+            if (bounds.length == 2) {
+                int min = Integer.parseInt(bounds[0].trim());
+                int max = Integer.parseInt(bounds[1].trim());
+                if (min >= 0 && max >= min) {
+                    return new int[] { min, max };
+                }
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the exception below
+        }
+
+        throw new IllegalArgumentException(
+            "Value for <" + name + "> argument: '" + range +
+            "' is invalid. Please provide a range of whole numbers, e.g. 0-10."
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @description Writes each generated file to a file of its own in a directory, which is
+ * created if it doesn't exist. Files from earlier generations are overwritten, and stay
+ * in place unless deleted, so a directory can be updated incrementally.
+ */
+public class DirectorySink implements OutputSink {
+    private final String path;
+
+    // @param path the directory, ending with a path separator
+    public DirectorySink(String path) {
+        this.path = path;
+        (new File(path)).mkdirs();
+    }
+
+    public OutputStream open(String fileName) throws IOException {
+        File file = getFile(fileName);
+        // files in subdirectories, e.g. the search index's shards
+        if (fileName.indexOf('/') >= 0) {
+            file.getParentFile().mkdirs();
+        }
+        return new FileOutputStream(file);
+    }
+
+    // the file is left incomplete, so it's removed
+    public void discard(String fileName, OutputStream stream) throws IOException {
+        stream.close();
+        getFile(fileName).delete();
+    }
+
+    public boolean delete(String fileName) {
+        File file = getFile(fileName);
+        return file.exists() && file.delete();
+    }
+
+    public File getFile(String fileName) {
+        return new File(path + fileName);
+    }
+
+    public void close() {
+        // every file is closed as soon as it's written
+    }
+
+    public void abort() {
+        // the files written are complete, and an unfinished one has been discarded
+    }
+}
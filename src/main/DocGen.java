@@ -1,210 +1,254 @@
 package main;
 
 import main.models.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.function.Function;
 
+/**
+ * @description Renders the documentation's HTML. Pages are rendered as the generation's
+ * config asks, e.g. in alphabetical or logical order and with or without links to hosted
+ * source, so each generation renders with its own DocGen. Nothing is shared between
+ * instances, and an instance never changes once made, so pages may render concurrently.
+ */
 public class DocGen {
-    public static String sortOrderStyle;
-    public static String hostedSourceURL;
-    public static boolean showMethodTOCDescription;
-    public static TreeMap<String, String> usedIds = new TreeMap<String, String>();
+    private final GeneratorConfig config;
+
+    // where fragments of method details are written, and how many methods each holds
+    public static final String DETAILS_DIRECTORY = "details/";
+    private static final int DETAILS_PER_FRAGMENT = 25;
+
+    // static markup, pre-encoded once and copied into each page as is
+    private static final byte[] SECTION_OPEN = HTMLBuffer.encode("<details class='section' open><summary><h2 class='sectionTitle' id='");
+    private static final byte[] SECTION_TITLE_OPEN = HTMLBuffer.encode("<h2 class='sectionTitle' id='");
+    private static final byte[] SECTION_TITLE_CLOSE = HTMLBuffer.encode("</h2>");
+    private static final byte[] SECTION_HEADER_CLOSE = HTMLBuffer.encode("</h2></summary>");
+    private static final byte[] DETAILS_CLOSE = HTMLBuffer.encode("</details>");
+    private static final byte[] SOURCE_LINK_ICON = HTMLBuffer.encode("<span>" + HTML.EXTERNAL_LINK + "</span>");
+    private static final byte[] SOURCE_LINK_OPEN = HTMLBuffer.encode("<a target='_blank' title='Go to source' class='hostedSourceLink' href='");
+    private static final byte[] PROPERTIES_OPEN = HTMLBuffer.encode(
+        "<details class='subSection' open><summary><h2 class='subsectionTitle properties'>Properties</h2></summary>" +
+        "<div class='subsectionContainer'><table class='attrTable properties'><tr><th>Name</th><th>Signature</th>");
+    private static final byte[] ENUMS_OPEN = HTMLBuffer.encode(
+        "<details class='subSection' open><summary><h2 class='subsectionTitle enums'>Enums</h2></summary>" +
+        "<div class='subsectionContainer'> <table class='attrTable enums'><tr><th>Name</th><th>Signature</th><th>Values</th>");
+    private static final byte[] METHODS_OPEN = HTMLBuffer.encode(
+        "<details class='subSection' open><summary><h2 class='subsectionTitle methods'>Methods</h2></summary>" +
+        "<div class='methodsContainer'><ul class='methodTOC'>");
+    private static final byte[] TABLE_CLOSE = HTMLBuffer.encode("</table></div><p/></details>");
+    private static final byte[] SIGNATURE_CELL_OPEN = HTMLBuffer.encode("<td><div class='attrSignature'>");
+    private static final byte[] CELL_CLOSE = HTMLBuffer.encode("</div></td>");
+    private static final byte[] DESCRIPTION_CELL_OPEN = HTMLBuffer.encode("<td><div class='attrDescription'>");
+    private static final byte[] METHOD_SUBTITLE_OPEN = HTMLBuffer.encode("<div class='methodSubTitle'>");
+    private static final byte[] METHOD_SUBDESCRIPTION_OPEN = HTMLBuffer.encode("</div><div class='methodSubDescription'>");
+    private static final byte[] DIV_CLOSE = HTMLBuffer.encode("</div>");
+    private static final byte[] SHARED_MENU = HTMLBuffer.encode(
+        "<td width='22%' vertical-align='top' >" +
+        "<div class='navbar' id='navbar'></div>" +
+        "<script type='text/javascript' src='" + HTML.MENU_SCRIPT + "'></script>" +
+        "</td>");
+
+    public DocGen(GeneratorConfig config) {
+        this.config = config;
+    }
+
+    public void documentClass(HTMLBuffer out, ClassModel cModel, SymbolTable symbols) throws IOException {
+        boolean hasSource = !config.getHostedSourceURL().equals("");
 
-    public static String documentClass(ClassModel cModel, TreeMap<String, TopLevelModel> modelMap, ArrayList<TopLevelModel> models) {
-        boolean hasSource = hostedSourceURL != null && !hostedSourceURL.equals("");
-        String sourceLinkIcon = hasSource ? "<span>" + HTML.EXTERNAL_LINK + "</span>" : "";
-        String sectionSourceLink = maybeMakeSourceLink(cModel, cModel.getTopmostClassName(), escapeHTML(cModel.getName(), false));
-        String header = "<h2 class='sectionTitle' id='" + cModel.getName() + "'>" + sectionSourceLink + sourceLinkIcon +"</h2>";
+        out.write(SECTION_OPEN).write(cModel.getName()).write("'>");
+        writeSourceLink(out, cModel, cModel.getTopmostClassName(), escapeHTML(cModel.getName(), false));
+        if (hasSource) out.write(SOURCE_LINK_ICON);
+        out.write(SECTION_HEADER_CLOSE);
 
-        String contents = documentTopLevelAttributes(cModel, modelMap, models, cModel.getTopmostClassName(), null);
+        documentTopLevelAttributes(out, cModel, symbols, cModel.getTopmostClassName(), null);
 
         if (cModel.getProperties().size() > 0) {
-            contents += documentProperties(cModel);
+            documentProperties(out, cModel);
         }
 
         if (cModel.getEnums().size() > 0) {
-            contents += documentInnerEnums(cModel);
+            documentInnerEnums(out, cModel);
         }
 
         if (cModel.getMethods().size() > 0) {
-            contents += documentMethods(cModel, modelMap, models);
+            documentMethods(out, cModel, symbols);
         }
 
-        return wrapInDetailsTag(contents, header, "section");
+        out.write(DETAILS_CLOSE);
     }
 
-    public static String documentEnum(EnumModel eModel, TreeMap<String, TopLevelModel> modelMap, ArrayList<TopLevelModel> models) {
-        boolean hasSource = hostedSourceURL != null && !hostedSourceURL.equals("");
-        String sourceLinkIcon = hasSource ? "<span>" + HTML.EXTERNAL_LINK + "</span>" : "";
-        String sectionSourceLink = maybeMakeSourceLink(eModel, eModel.getName(), escapeHTML(eModel.getName(), false));
-        String contents = "<h2 class='sectionTitle' id='" + eModel.getName() + "'>" + sectionSourceLink + sourceLinkIcon +"</h2>";
-
-        String values = "<p />";
-        values += "<table class='attrTable'>";
-        values += "<tr><th>Values</th></tr><tr>";
-        values += "<td class='enumValues'>" + String.join(", ", eModel.getValues()) + "</td>";
-        values += "</tr></table>";
-
-        contents += documentTopLevelAttributes(eModel, modelMap, models, eModel.getName(), values);
-
-        return contents;
+    public void documentEnum(HTMLBuffer out, EnumModel eModel, SymbolTable symbols) throws IOException {
+        boolean hasSource = !config.getHostedSourceURL().equals("");
+
+        out.write(SECTION_TITLE_OPEN).write(eModel.getName()).write("'>");
+        writeSourceLink(out, eModel, eModel.getName(), escapeHTML(eModel.getName(), false));
+        if (hasSource) out.write(SOURCE_LINK_ICON);
+        out.write(SECTION_TITLE_CLOSE);
+
+        documentTopLevelAttributes(out, eModel, symbols, eModel.getName(), values -> {
+            values.write("<p />");
+            values.write("<table class='attrTable'>");
+            values.write("<tr><th>Values</th></tr><tr>");
+            values.write("<td class='enumValues'>");
+            writeJoined(values, ", ", eModel.getValues());
+            values.write("</td>");
+            values.write("</tr></table>");
+        });
     }
 
-    private static String documentTopLevelAttributes(TopLevelModel model, TreeMap<String, TopLevelModel> modelMap, ArrayList<TopLevelModel> models, String className, String additionalContent) {
-        String classSourceLink = maybeMakeSourceLink(model, className, escapeHTML(model.getNameLine(), false));
-        String contents = "";
-
+    private void documentTopLevelAttributes(HTMLBuffer out, TopLevelModel model, SymbolTable symbols, String className, HTMLBuffer.Content additionalContent) throws IOException {
         if (model.getAnnotations().size() > 0) {
-            contents += "<div class='classAnnotations'>" + String.join(" ", model.getAnnotations()) + "</div>";
+            out.write("<div class='classAnnotations'>");
+            writeJoined(out, " ", model.getAnnotations());
+            out.write("</div>");
         }
 
-        contents += "<div class='classSignature'>" + classSourceLink + "</div>";
+        out.write("<div class='classSignature'>");
+        writeSourceLink(out, model, className, escapeHTML(model.getNameLine(), false));
+        out.write(DIV_CLOSE);
 
         if (!model.getDescription().equals("")) {
-            contents += "<div class='classDetails'><div>" + escapeHTML(model.getDescription(), true) + "</div>";
+            out.write("<div class='classDetails'><div>").write(escapeHTML(model.getDescription(), true)).write(DIV_CLOSE);
         }
 
         // add any additional content passed in from the caller. currently, only
         // use case is the values table used when documenting class-level enums
         if (additionalContent != null) {
-            contents += additionalContent;
+            additionalContent.write(out);
         }
 
         if (!model.getDeprecated().equals("")) {
-            contents +="<div class='classSubtitle deprecated'>Deprecated</div>";
-            contents += "<div class='classSubDescription'>" + escapeHTML(model.getDeprecated(), true) + "</div>";
+            out.write("<div class='classSubtitle deprecated'>Deprecated</div>");
+            out.write("<div class='classSubDescription'>").write(escapeHTML(model.getDeprecated(), true)).write(DIV_CLOSE);
         }
 
         if (!model.getSee().equals("")) {
-            contents += "<div class='classSubtitle'>See</div>";
-            contents += "<div class='classSubDescription'>" + makeSeeLinks(modelMap, models, model.getSee()) + "</div>";
+            out.write("<div class='classSubtitle'>See</div>");
+            out.write("<div class='classSubDescription'>").write(makeSeeLinks(symbols, model.getSee())).write(DIV_CLOSE);
         }
 
         if (!model.getAuthor().equals("")) {
-            contents += "<br/>" + escapeHTML(model.getAuthor(), false);
+            out.write("<br/>").write(escapeHTML(model.getAuthor(), false));
         }
 
         if (!model.getDate().equals("")) {
-            contents += "<br/>" + escapeHTML(model.getDate(), false);
+            out.write("<br/>").write(escapeHTML(model.getDate(), false));
         }
 
         if (!model.getExample().equals("")) {
-            contents += "<div class='classSubTitle'>Example</div>";
-            contents += "<pre class='codeExample'><code>" + escapeHTML(model.getExample(), false) + "</code></pre>";
+            out.write("<div class='classSubTitle'>Example</div>");
+            out.write("<pre class='codeExample'><code>").write(escapeHTML(model.getExample(), false)).write("</code></pre>");
         }
 
-        contents += "</div><p/>";
-
-        return contents;
+        out.write("</div><p/>");
     }
 
-    private static String documentProperties(ClassModel cModel) {
-        String contents = "";
+    private void documentProperties(HTMLBuffer out, ClassModel cModel) throws IOException {
         // retrieve properties to work with in the order user specifies
-        ArrayList<PropertyModel> properties = sortOrderStyle.equals(ApexDoc.ORDER_ALPHA)
+        List<PropertyModel> properties = config.isSortedAlphabetically()
             ? cModel.getPropertiesSorted()
             : cModel.getProperties();
 
-        // start Properties
-        contents += "<div class='subsectionContainer'>";
-        contents += "<table class='attrTable properties'>";
-
         // iterate once first to determine if we need to
         // build annotations and and description columns
-        String descriptionCol = "", annotationsCol = "";
+        boolean hasDescriptions = false, hasAnnotations = false;
         for (PropertyModel prop : properties) {
-            if (prop.getDescription().length() > 0) descriptionCol = "<th>Description</th>";
-            if (prop.getAnnotations().size() > 0) annotationsCol = "<th>Annotations</th>";
+            if (prop.getDescription().length() > 0) hasDescriptions = true;
+            if (prop.getAnnotations().size() > 0) hasAnnotations = true;
         }
 
-        String columnsTemplate = "<tr><th>Name</th><th>Signature</th>%s%s</tr>";
-        contents += String.format(columnsTemplate, annotationsCol, descriptionCol);
+        // start Properties
+        out.write(PROPERTIES_OPEN);
+        if (hasAnnotations) out.write("<th>Annotations</th>");
+        if (hasDescriptions) out.write("<th>Description</th>");
+        out.write("</tr>");
 
         for (PropertyModel prop : properties) {
-            String nameLine = Utils.highlightNameLine(prop.getNameLine());
-            String propSourceLink = maybeMakeSourceLink(prop, cModel.getTopmostClassName(), nameLine);
-
-            contents += "<tr class='property " + prop.getScope() + "'>";
-            contents += "<td class='attrName'>" + prop.getPropertyName() + "</td>";
-            contents += "<td><div class='attrSignature'>" + propSourceLink + "</div></td>";
-
-            if (annotationsCol.length() > 0) {
-                contents += "<td><div class='propAnnotations'>" + String.join(", ", prop.getAnnotations()) + "</div></td>";
+            out.write("<tr class='property ").write(prop.getScope()).write("'>");
+            out.write("<td class='attrName'>").write(prop.getPropertyName()).write("</td>");
+            out.write(SIGNATURE_CELL_OPEN);
+            writeSourceLink(out, prop, cModel.getTopmostClassName(), Utils.highlightNameLine(prop.getNameLine()));
+            out.write(CELL_CLOSE);
+
+            if (hasAnnotations) {
+                out.write("<td><div class='propAnnotations'>");
+                writeJoined(out, ", ", prop.getAnnotations());
+                out.write(CELL_CLOSE);
             }
 
             // if any property has a description build out the third column
-            if (descriptionCol.length() > 0) {
-                contents += "<td><div class='attrDescription'>" + escapeHTML(prop.getDescription(), true) + "</div></td>";
+            if (hasDescriptions) {
+                out.write(DESCRIPTION_CELL_OPEN).write(escapeHTML(prop.getDescription(), true)).write(CELL_CLOSE);
             }
 
-            contents += "</tr>";
+            out.write("</tr>");
         }
         // end Properties
-        contents += "</table></div>";
-        contents += "<p/>";
-
-        return wrapInDetailsTag(contents, "<h2 class='subsectionTitle properties'>Properties</h2>", "subSection");
+        out.write(TABLE_CLOSE);
     }
 
-    private static String documentInnerEnums(ClassModel cModel) {
-        String contents = "";
-
-        ArrayList<EnumModel> enums = sortOrderStyle.equals(ApexDoc.ORDER_ALPHA)
+    private void documentInnerEnums(HTMLBuffer out, ClassModel cModel) throws IOException {
+        List<EnumModel> enums = config.isSortedAlphabetically()
             ? cModel.getEnumsSorted()
             : cModel.getEnums();
 
-        // start Properties
-        contents += "<div class='subsectionContainer'> " +
-                    "<table class='attrTable enums'>";
-
         // iterate once first to determine if we need to build the third column in the table
-        String descriptionCol = "";
+        boolean hasDescriptions = false;
         for (EnumModel Enum : enums) {
-            if (Enum.getDescription().length() > 0) descriptionCol = "<th>Description</th>";
+            if (Enum.getDescription().length() > 0) hasDescriptions = true;
         }
 
-        contents += String.format("<tr><th>Name</th><th>Signature</th><th>Values</th>%s</tr>", descriptionCol);
+        // start Enums
+        out.write(ENUMS_OPEN);
+        if (hasDescriptions) out.write("<th>Description</th>");
+        out.write("</tr>");
 
         for (EnumModel Enum : enums) {
-            String nameLine = Utils.highlightNameLine(Enum.getNameLine());
-            String propSourceLink = maybeMakeSourceLink(Enum, cModel.getTopmostClassName(), nameLine);
-            contents += "<tr class='enum " + Enum.getScope() + "'>";
-            contents += "<td class='attrName'>" + Enum.getName() + "</td>";
-            contents += "<td><div class='attrSignature'>" + propSourceLink + "</div></td>";
-            contents += "<td class='enumValues'>" + String.join(", ", Enum.getValues()) + "</td>";
-
-            // if any property has a description build out the third column
-            if (descriptionCol.length() > 0) {
-                contents += "<td><div class='attrDescription'>" + escapeHTML(Enum.getDescription(), true) + "</div></td>";
+            out.write("<tr class='enum ").write(Enum.getScope()).write("'>");
+            out.write("<td class='attrName'>").write(Enum.getName()).write("</td>");
+            out.write(SIGNATURE_CELL_OPEN);
+            writeSourceLink(out, Enum, cModel.getTopmostClassName(), Utils.highlightNameLine(Enum.getNameLine()));
+            out.write(CELL_CLOSE);
+            out.write("<td class='enumValues'>");
+            writeJoined(out, ", ", Enum.getValues());
+            out.write("</td>");
+
+            // if any enum has a description build out the fourth column
+            if (hasDescriptions) {
+                out.write(DESCRIPTION_CELL_OPEN).write(escapeHTML(Enum.getDescription(), true)).write(CELL_CLOSE);
             }
 
-            contents += "</tr>";
+            out.write("</tr>");
         }
-        // end Properties
-        contents += "</table></div><p/>";
-
-        return wrapInDetailsTag(contents, "<h2 class='subsectionTitle enums'>Enums</h2>", "subSection");
+        // end Enums
+        out.write(TABLE_CLOSE);
     }
 
-    private static String documentMethods(ClassModel cModel, TreeMap<String, TopLevelModel> modelMap, ArrayList<TopLevelModel> models) {
+    /**
+     * @description the ids of a class's methods' headers, which the TOC, and the search index,
+     * link to: the fully qualified method name, with a count appended to each overload after
+     * the first so that every method has its own anchor.
+     * @param methods the class's methods, in the order they're documented
+     */
+    public static String[] makeMethodIds(ClassModel cModel, List<MethodModel> methods) {
         // track Ids used to make sure we're not generating duplicate
         // Ids within this class, and so that overloaded methods each
         // have their own unique anchor to link to in the TOC.
         TreeMap<String, Integer> idCountMap = new TreeMap<String, Integer>();
+        String[] methodIds = new String[methods.size()];
 
-        // Local fucntion to make TOC entry and other variables we need to make HTML
-        Function<MethodModel, TreeMap<String, String>> describeMethod = method -> {
+        for (int i = 0; i < methods.size(); i++) {
             // Get method id, i.e. the fully qualified method name.
             // Then see if this ID has been used previously in this class
             // (must be an overloaded method or constructor) and ammend
             // as needed to ensure all of our methods have unique IDs
-            String methodId = cModel.getName() + "." + method.getMethodName();
+            String methodId = cModel.getName() + "." + methods.get(i).getMethodName();
             Integer count;
             if ((count = idCountMap.get(methodId)) == null) {
                 idCountMap.put(methodId, 1);
@@ -212,145 +256,276 @@ public class DocGen {
                 idCountMap.put(methodId, count + 1);
                 methodId += '_' + String.valueOf(count);
             }
+            methodIds[i] = methodId;
+        }
+        return methodIds;
+    }
+
+    private void documentMethods(HTMLBuffer out, ClassModel cModel, SymbolTable symbols) throws IOException {
+        // retrieve methods to work with in the order user specifies
+        List<MethodModel> methods = config.isSortedAlphabetically()
+            ? cModel.getMethodsSorted()
+            : cModel.getMethods();
+
+        String[] methodIds = makeMethodIds(cModel, methods);
+        String[] methodNames = new String[methods.size()];
+
+        // start Methods, with the TOC
+        out.write(METHODS_OPEN);
+        for (int i = 0; i < methods.size(); i++) {
+            MethodModel method = methods.get(i);
+            String methodId = methodIds[i];
 
             // if method is constructor, append <init>
             String methodName = method.getMethodName();
             if (methodName.equalsIgnoreCase(cModel.getName())) methodName += ".&lt;init&gt;";
             boolean isDeprecated = !method.getDeprecated().equals("");
 
+            methodNames[i] = methodName;
+
             // make TOC entry with variables we just calculated
-            String entry = "<li class='method " + method.getScope() + "' >" +
-                "<a class='methodTOCEntry" + (isDeprecated ? " deprecated" : "") + "'" +
-                "href='#" + methodId + "'>" + methodName + "</a>";
+            out.write("<li class='method ").write(method.getScope()).write("' >");
+            out.write(isDeprecated ? "<a class='methodTOCEntry deprecated'" : "<a class='methodTOCEntry'");
+            out.write("href='#").write(methodId).write("'>").write(methodName).write("</a>");
 
             // do not render description in TOC if user has indicated to hide
-            if (showMethodTOCDescription && method.getDescription() != "") {
-                entry += "<div class='methodTOCDescription'>" + method.getDescription() + "</div>";
+            if (config.getShowMethodTOCDescription() && !method.getDescription().isEmpty()) {
+                out.write("<div class='methodTOCDescription'>").write(method.getDescription()).write(DIV_CLOSE);
             }
 
-            // add everything to the map and return
-            TreeMap<String, String> results = new TreeMap<String, String>();
-            results.put("isDeprecated", String.valueOf(isDeprecated));
-            results.put("TOC", entry += "</li>");
-            results.put("name", methodName);
-            results.put("id", methodId);
-            return results;
-        };
-
-        // retrieve methods to work with in the order user specifies
-        ArrayList<MethodModel> methods = sortOrderStyle.equals(ApexDoc.ORDER_ALPHA)
-            ? cModel.getMethodsSorted()
-            : cModel.getMethods();
-
-        // start Methods
-        String contents = "<div class='methodsContainer'>";
-        String tocHTML = "<ul class='methodTOC'>";
-        String methodsHTML = "";
-
-        // full method display
-        for (MethodModel method : methods) {
-            // get the TOC entry and other variables we need to make HTML
-            TreeMap<String, String> methodAttributes = describeMethod.apply(method);
+            out.write("</li>");
+        }
+        out.write("</ul>");
 
-            tocHTML += methodAttributes.get("TOC");
-            String methodId = methodAttributes.get("id");
-            String methodName = methodAttributes.get("name");
-            boolean isDeprecated = Boolean.valueOf(methodAttributes.get("isDeprecated"));
-            String methodSourceLink = maybeMakeSourceLink(method, cModel.getTopmostClassName(), Utils.highlightNameLine(escapeHTML(method.getNameLine(), false)));
+        // full method display. Pages of classes with very many methods only show each
+        // method's header, the TOC already summarizing it; index.js fetches the rest as needed.
+        boolean isLazy = hasLazyDetails(cModel);
+        for (int i = 0; i < methods.size(); i++) {
+            MethodModel method = methods.get(i);
+            boolean isDeprecated = !method.getDeprecated().equals("");
 
             // open current method
-            methodsHTML += "<div class='method " + method.getScope() + "' >";
+            out.write("<div class='method ").write(method.getScope()).write("' >");
 
             // use fully qualified method name as ID to prevent from TOCs in the same file linking
             // to the same method. For example, an abstract class and a calss which extends that
             // class in the same file are likely to have the same methods and thus conflicting IDs.
-            methodsHTML += "<h2 class='methodHeader" + (isDeprecated ? " deprecated" : "") + "'" +
-                        "id='" + methodId + "'>" + methodName + "</h2>";
+            out.write(isDeprecated ? "<h2 class='methodHeader deprecated'" : "<h2 class='methodHeader'");
+            out.write("id='").write(methodIds[i]).write("'>").write(methodNames[i]).write("</h2>");
 
-            if (method.getAnnotations().size() > 0) {
-                methodsHTML += "<div class='methodAnnotations'>" + String.join(" ", method.getAnnotations()) + "</div>";
+            if (isLazy) {
+                out.write("<div class='methodDetail' data-fragment='");
+                out.write(makeDetailsFileName(cModel, i / DETAILS_PER_FRAGMENT)).write("'></div>");
+            } else {
+                writeMethodDetail(out, cModel, method, symbols);
             }
 
-            methodsHTML += "<div class='methodSignature'>" + methodSourceLink + "</div>";
+            // end current method
+            out.write(DIV_CLOSE);
+        }
 
-            if (!method.getDescription().equals("")) {
-                methodsHTML += "<div class='methodDescription'>" + escapeHTML(method.getDescription(), true) + "</div>";
-            }
+        // close full methods display
+        out.write(DIV_CLOSE);
+        out.write(DETAILS_CLOSE);
+    }
 
-            if (isDeprecated) {
-                methodsHTML +="<div class='methodSubTitle deprecated'>Deprecated</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + escapeHTML(method.getDeprecated(), true) + "</div>";
+    // whether a class's method details are written to fragments, rather than into its page
+    public boolean hasLazyDetails(ClassModel cModel) {
+        return hasLazyDetails(cModel, config);
+    }
+
+    public static boolean hasLazyDetails(ClassModel cModel, GeneratorConfig config) {
+        return config.getLazyDetails() > 0 && cModel.getMethods().size() >= config.getLazyDetails();
+    }
+
+    // every fragment file the method details of a class, and of its child classes, are written to
+    public static ArrayList<String> makeDetailsFileNames(ClassModel cModel, GeneratorConfig config) {
+        ArrayList<String> fileNames = new ArrayList<String>();
+        if (hasLazyDetails(cModel, config)) {
+            for (int i = 0; i < countDetailsFragments(cModel); i++) {
+                fileNames.add(makeDetailsFileName(cModel, i));
             }
+        }
 
-            if (method.getParams().size() > 0) {
-                methodsHTML += "<div class='methodSubTitle'>Parameters</div>";
-                for (String param : method.getParams()) {
-                    param = escapeHTML(param, true);
-                    if (param != null && param.trim().length() > 0) {
-                        Pattern p = Pattern.compile("\\s");
-                        Matcher m = p.matcher(param);
-
-                        String paramName;
-                        String paramDescription;
-                        if (m.find()) {
-                            int ich = m.start();
-                            paramName = param.substring(0, ich);
-                            paramDescription = param.substring(ich + 1);
-                        } else {
-                            paramName = param;
-                            paramDescription = null;
-                        }
-                        methodsHTML += "<div class='paramName'>" + paramName + "</div>";
-
-                        if (paramDescription != null) {
-                            methodsHTML += "<div class='paramDescription'>" + paramDescription + "</div>";
-                        }
-                    }
+        for (ClassModel child : cModel.getChildClasses()) {
+            fileNames.addAll(makeDetailsFileNames(child, config));
+        }
+        return fileNames;
+    }
+
+    // the number of fragments a class's method details are written to
+    public static int countDetailsFragments(ClassModel cModel) {
+        return (cModel.getMethods().size() + DETAILS_PER_FRAGMENT - 1) / DETAILS_PER_FRAGMENT;
+    }
+
+    // the file a fragment of a class's method details is written to, relative to the target directory
+    public static String makeDetailsFileName(ClassModel cModel, int fragment) {
+        return DETAILS_DIRECTORY + cModel.getName() + "." + fragment + ".js";
+    }
+
+    /**
+     * @description writes a fragment of a class's method details: a script which hands
+     * index.js the detail HTML of each of a run of methods, by method id, to insert into
+     * the class's page below each method's header, whose id it follows.
+     * @param fragment which run of DETAILS_PER_FRAGMENT methods to write, in documented order
+     */
+    public void documentMethodDetails(HTMLBuffer out, ClassModel cModel, int fragment, SymbolTable symbols)
+            throws IOException {
+
+        List<MethodModel> methods = config.isSortedAlphabetically()
+            ? cModel.getMethodsSorted()
+            : cModel.getMethods();
+        String[] methodIds = makeMethodIds(cModel, methods);
+
+        // each detail is rendered into one scratch buffer, reused for every method in the
+        // fragment, which escapes it into the fragment as a JSON string as it's flushed
+        HTMLBuffer detail = new HTMLBuffer(new JSONStringStream(out));
+        out.write("registerMethodDetails({");
+        int first = fragment * DETAILS_PER_FRAGMENT;
+        for (int i = first; i < Math.min(first + DETAILS_PER_FRAGMENT, methods.size()); i++) {
+            out.write(i > first ? "," : "").write(Utils.toJSONString(methodIds[i])).write(":\"");
+            writeMethodDetail(detail, cModel, methods.get(i), symbols);
+            detail.flush();
+            out.write("\"");
+        }
+        out.write("});\n");
+    }
+
+    /**
+     * @description writes UTF-8 into a buffer as the contents of a JSON string, escaping
+     * the same characters as Utils.toJSONString. HTMLBuffer never splits a character
+     * between writes, so the 3 byte encodings of U+2028 and U+2029 are always whole.
+     */
+    private static class JSONStringStream extends OutputStream {
+        private final HTMLBuffer out;
+
+        private JSONStringStream(HTMLBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int end = offset + length;
+            int start = offset;
+            for (int i = offset; i < end; i++) {
+                int b = bytes[i] & 0xFF;
+                int escaped;
+                if (b == '"' || b == '\\' || b < ' ') {
+                    escaped = 1;
+                } else if (b == 0xE2 && i + 2 < end && (bytes[i + 1] & 0xFF) == 0x80
+                    && ((bytes[i + 2] & 0xFF) == 0xA8 || (bytes[i + 2] & 0xFF) == 0xA9)) {
+                    escaped = 3;
+                } else {
+                    continue;
                 }
-                // end Parameters
-            }
 
-            if (!method.getReturns().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>Return Value</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + escapeHTML(method.getReturns(), true) + "</div>";
+                out.write(bytes, start, i - start);
+                if (escaped == 3) {
+                    out.write((bytes[i + 2] & 0xFF) == 0xA8 ? "\\u2028" : "\\u2029");
+                } else if (b == '"' || b == '\\') {
+                    out.write(b == '"' ? "\\\"" : "\\\\");
+                } else {
+                    out.write(String.format("\\u%04x", b));
+                }
+                i += escaped - 1;
+                start = i + 1;
             }
+            out.write(bytes, start, end - start);
+        }
+    }
 
-            if (!method.getException().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>Exceptions</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + escapeHTML(method.getException(), true) + "</div>";
-            }
+    // everything documented about a method below its header
+    private void writeMethodDetail(HTMLBuffer out, ClassModel cModel, MethodModel method, SymbolTable symbols)
+            throws IOException {
 
-            if (!method.getSee().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>See</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + makeSeeLinks(modelMap, models, method.getSee()) + "</div>";
-            }
+        boolean isDeprecated = !method.getDeprecated().equals("");
+        if (method.getAnnotations().size() > 0) {
+            out.write("<div class='methodAnnotations'>");
+            writeJoined(out, " ", method.getAnnotations());
+            out.write(DIV_CLOSE);
+        }
 
-            if (!method.getAuthor().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>Author</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + escapeHTML(method.getAuthor(), false) + "</div>";
-            }
+        out.write("<div class='methodSignature'>");
+        writeSourceLink(out, method, cModel.getTopmostClassName(), Utils.highlightNameLine(escapeHTML(method.getNameLine(), false)));
+        out.write(DIV_CLOSE);
 
-            if (!method.getDate().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>Date</div>";
-                methodsHTML += "<div class='methodSubDescription'>" + escapeHTML(method.getDate(), false) + "</div>";
-            }
+        if (!method.getDescription().equals("")) {
+            out.write("<div class='methodDescription'>").write(escapeHTML(method.getDescription(), true)).write(DIV_CLOSE);
+        }
+
+        if (isDeprecated) {
+            out.write("<div class='methodSubTitle deprecated'>Deprecated</div>");
+            out.write("<div class='methodSubDescription'>").write(escapeHTML(method.getDeprecated(), true)).write(DIV_CLOSE);
+        }
+
+        if (method.getParams().size() > 0) {
+            out.write("<div class='methodSubTitle'>Parameters</div>");
+            for (String param : method.getParams()) {
+                param = escapeHTML(param, true);
+                if (param != null && param.trim().length() > 0) {
+                    Matcher m = Patterns.WHITESPACE.matcher(param);
+
+                    String paramName;
+                    String paramDescription;
+                    if (m.find()) {
+                        int ich = m.start();
+                        paramName = param.substring(0, ich);
+                        paramDescription = param.substring(ich + 1);
+                    } else {
+                        paramName = param;
+                        paramDescription = null;
+                    }
+                    out.write("<div class='paramName'>").write(paramName).write(DIV_CLOSE);
 
-            if (!method.getExample().equals("")) {
-                methodsHTML += "<div class='methodSubTitle'>Example</div>";
-                methodsHTML += "<pre class='codeExample'><code>" + escapeHTML(method.getExample(), false) + "</code></pre>";
+                    if (paramDescription != null) {
+                        out.write("<div class='paramDescription'>").write(paramDescription).write(DIV_CLOSE);
+                    }
+                }
             }
+            // end Parameters
+        }
 
-            // end current method
-            methodsHTML += "</div>";
+        if (!method.getReturns().equals("")) {
+            writeMethodSubsection(out, "Return Value", escapeHTML(method.getReturns(), true));
+        }
+
+        if (!method.getException().equals("")) {
+            writeMethodSubsection(out, "Exceptions", escapeHTML(method.getException(), true));
+        }
+
+        if (!method.getSee().equals("")) {
+            writeMethodSubsection(out, "See", makeSeeLinks(symbols, method.getSee()));
+        }
+
+        if (!method.getAuthor().equals("")) {
+            writeMethodSubsection(out, "Author", escapeHTML(method.getAuthor(), false));
+        }
+
+        if (!method.getDate().equals("")) {
+            writeMethodSubsection(out, "Date", escapeHTML(method.getDate(), false));
+        }
+
+        if (!method.getExample().equals("")) {
+            out.write("<div class='methodSubTitle'>Example</div>");
+            out.write("<pre class='codeExample'><code>").write(escapeHTML(method.getExample(), false)).write("</code></pre>");
         }
+    }
 
-        // concat and close TOC and full methods display HTML
-        contents += tocHTML;
-        contents += "</ul>";
-        contents += methodsHTML;
-        contents += "</div>";
+    private static void writeMethodSubsection(HTMLBuffer out, String title, String contents) throws IOException {
+        out.write(METHOD_SUBTITLE_OPEN).write(title).write(METHOD_SUBDESCRIPTION_OPEN).write(contents).write(DIV_CLOSE);
+    }
 
-        return wrapInDetailsTag(contents, "<h2 class='subsectionTitle methods'>Methods</h2>", "subSection");
+    // writes the values separated by the separator, as String.join would
+    private static void writeJoined(HTMLBuffer out, String separator, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.write(separator);
+            out.write(values.get(i));
+        }
     }
 
     public static String escapeHTML(String s, boolean wrapBackticks) {
@@ -370,31 +545,29 @@ public class DocGen {
         String result = wrapBackticks ? wrapInlineCode(out.toString()) : out.toString();
 
         // preserve <br> tags so they render as HTML
-        result = result.replaceAll("&#60;br\\s?/?&#62;", "<br>");
+        if (result.contains("&#60;br")) {
+            result = Patterns.ESCAPED_BR_TAG.matcher(result).replaceAll("<br>");
+        }
 
         return result;
     }
 
-    private static String wrapInDetailsTag(String contents, String header, String className) {
-        String wrapped = "<details class='" + className + "' open>";
-        wrapped += "<summary>";
-        wrapped += header;
-        wrapped += "</summary>";
-        wrapped += contents;
-        wrapped += "</details>";
-        return wrapped;
-    }
-
     private static String wrapInlineCode(String html) {
+        // without backticks, or whitespace for the split to collapse, there is nothing to do
+        if (html.indexOf('`') == -1 && !hasCollapsibleWhitespace(html)) {
+            return html;
+        }
+
         List<String> words = Arrays
-            .asList(html.split("\\b\\s{1,2}\\b"))
+            .asList(Patterns.WORD_SEPARATOR.split(html))
             .stream().map(word -> {
                 int firstIndex = word.indexOf("`");
                 int lastIndex = word.lastIndexOf("`");
                 if (firstIndex > -1 && lastIndex > -1 && firstIndex != lastIndex) {
-                    word = word.replaceFirst("`", "<code class='inlineCode'>");
-                    word = word.replaceFirst("`", "</code>");
-                    return word;
+                    word = word.substring(0, firstIndex) + "<code class='inlineCode'>"
+                        + word.substring(firstIndex + 1);
+                    int secondIndex = word.indexOf('`');
+                    return word.substring(0, secondIndex) + "</code>" + word.substring(secondIndex + 1);
                 }
                 return word;
             }).collect(Collectors.toList());
@@ -402,8 +575,30 @@ public class DocGen {
         return String.join(" ", words);
     }
 
-    public static String makeHTMLScopingPanel() {
+    // true if splitting on WORD_SEPARATOR and re-joining with single spaces would change
+    // the string, i.e. it has whitespace other than single spaces
+    private static boolean hasCollapsibleWhitespace(String html) {
+        for (int i = 0; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (c == ' ' ? i + 1 < html.length() && html.charAt(i + 1) == ' ' : Character.isWhitespace(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String makeHTMLScopingPanel() {
         String str = "<tr><td colspan='2' style='text-align: center;' >";
+
+        // the search box, whose results index.js renders from the search index
+        if (config.getSearch()) {
+            str += "<div class='search'>";
+            str += "<input type='search' id='searchInput' placeholder='Search' autocomplete='off' ";
+            str += "oninput='search(this.value);' onkeydown='searchKeyDown(event);' />";
+            str += "<div id='searchResults' class='searchResults hide'></div>";
+            str += "</div>";
+        }
+
         str += "Show: ";
 
         // add toggle all checkbox
@@ -412,15 +607,14 @@ public class DocGen {
         str += "<label for='cbx-all'>All</label>&nbsp;&nbsp;";
 
         // add checkboxes for registered scopes
-        List<String> boxes = Arrays
-            .asList(ApexDoc.rgstrScope)
-                .stream()
-                    .map(scope -> {
-                        return "<input type='checkbox' checked='true' id='cbx-" + scope +
-                                "' onclick='toggleScope(\"" + scope + "\", this.checked);' />" +
-                                "<label for='cbx-" + scope + "'>" + scope + "</label>";
-                    })
-                .collect(Collectors.toList());
+        List<String> boxes = config.getScopes()
+            .stream()
+                .map(scope -> {
+                    return "<input type='checkbox' checked='true' id='cbx-" + scope +
+                            "' onclick='toggleScope(\"" + scope + "\", this.checked);' />" +
+                            "<label for='cbx-" + scope + "'>" + scope + "</label>";
+                })
+            .collect(Collectors.toList());
 
         str += String.join("&nbsp;&nbsp;", boxes);
         str += "</td></tr>";
@@ -428,7 +622,8 @@ public class DocGen {
     }
 
     public static String makeHeader(String bannerPage, String documentTitle) {
-        String header =  "<html><head><title>" + documentTitle + "</title>";
+        // pages are always encoded as UTF-8, whatever the platform's default charset
+        String header =  "<html><head><meta charset='UTF-8'><title>" + documentTitle + "</title>";
 
         if (bannerPage != null && bannerPage.trim().length() > 0) {
             header += HTML.HEADER_OPEN + bannerPage;
@@ -439,88 +634,87 @@ public class DocGen {
         return header;
     }
 
-    public static String makeMenu(TreeMap<String, ClassGroup> mapGroupNameToClassGroup, ArrayList<TopLevelModel> models) {
-        boolean createMiscellaneousGroup = false;
-
-        // this is the only place we need the list of class models sorted by name.
-        TreeMap<String, TopLevelModel> tm = new TreeMap<String, TopLevelModel>();
-
-        for (TopLevelModel model : models) {
-            tm.put(model.getName().toLowerCase(), model);
-            if (!createMiscellaneousGroup && model.getGroupName() == null) {
-                createMiscellaneousGroup = true;
-            }
-        }
+    public static void makeMenu(HTMLBuffer out, TreeMap<String, ClassGroup> mapGroupNameToClassGroup) throws IOException {
+        // make menu wide enough to always handle 40 char class name limit
+        out.write("<td width='22%' vertical-align='top' >");
+        out.write("<div class='navbar'>");
+        makeNavigation(out, mapGroupNameToClassGroup);
+        out.write("</div>");
+        out.write("</td>");
+    }
 
-        models = new ArrayList<TopLevelModel>(tm.values());
+    /**
+     * @description makes an empty menu, which menu.js fills in with the navigation shared
+     * by every page. Used instead of makeMenu when the menu is emitted once rather than
+     * inlined into every page.
+     */
+    public static void makeSharedMenu(HTMLBuffer out) throws IOException {
+        out.write(SHARED_MENU);
+    }
 
-        // make menu wide enough to always handle 40 char class name limit
-        String contents = "<td width='22%' vertical-align='top' >";
-        contents+= "<div class='navbar'>";
-        contents+= "<nav role='navigation'>";
-        contents+= "<a class='navHeader' id='home' href='javascript:void(0)' onclick=\"goToLocation('index.html');\">";
-        contents+= "Home</a>";
+    // the contents of menu.js, which renders the shared navigation into a page's empty menu
+    public static String makeMenuScript(TreeMap<String, ClassGroup> mapGroupNameToClassGroup) throws IOException {
+        byte[] navigation = HTMLBuffer.render(out -> makeNavigation(out, mapGroupNameToClassGroup));
+        return "renderMenu(" + Utils.toJSONString(new String(navigation, StandardCharsets.UTF_8)) + ");\n";
+    }
 
-        // add a bucket ClassGroup for all Classes without a ClassGroup specified
-        if (createMiscellaneousGroup) {
-            mapGroupNameToClassGroup.put("Miscellaneous", new ClassGroup("Miscellaneous", null));
-        }
+    /**
+     * @description makes the navigation in a single pass over the groups and their models,
+     * which ApexDoc.createGroupNameMap has already indexed and sorted by name.
+     */
+    private static void makeNavigation(HTMLBuffer out, TreeMap<String, ClassGroup> mapGroupNameToClassGroup) throws IOException {
+        out.write("<nav role='navigation'>");
+        out.write("<a class='navHeader' id='home' href='javascript:void(0)' onclick=\"goToLocation('index.html');\">");
+        out.write("Home</a>");
 
         // create a sorted list of ClassGroups
         for (String group : mapGroupNameToClassGroup.keySet()) {
             ClassGroup cg = mapGroupNameToClassGroup.get(group);
-            String groupId = group.replaceAll(" ", "_");
+            String groupId = group.replace(' ', '_');
 
-            contents+= "<details id='" + groupId + "' class='groupName'>";
-            contents+= "<summary onclick='toggleActiveClass(this);' id='header-" + groupId + "' class='navHeader'>";
+            out.write("<details id='").write(groupId).write("' class='groupName'>");
+            out.write("<summary onclick='toggleActiveClass(this);' id='header-").write(groupId).write("' class='navHeader'>");
 
             if (cg.getContentFilename() != null) {
-                String destination = cg.getContentFilename() + ".html";
                 // handle both onclick and onkeydown when tabbing to link
-                contents+= "<a href='javascript:void(0)' title='See Class Group info' " +
-                           "onclick=\"goToLocation('" + destination + "');\">" +
-                           group + "</a>";
+                out.write("<a href='javascript:void(0)' title='See Class Group info' onclick=\"goToLocation('")
+                   .write(cg.getContentFilename()).write(".html');\">").write(group).write("</a>");
             } else {
-                contents+= "<span>" + group + "</span>";
+                out.write("<span>").write(group).write("</span>");
             }
 
-            contents+= "</summary>";
-            contents+= "<ul>";
-
-            for (TopLevelModel model : models) {
-                // even though this algorithm is O(n^2), it was timed at just 12 milliseconds, so not an issue!
-                if (group.equals(model.getGroupName()) || (model.getGroupName() == null && group == "Miscellaneous")) {
-                    if (model.getNameLine() != null && model.getNameLine().trim().length() > 0) {
-                        String fileName = model.getName();
-                        contents+= "<li id='item-" + fileName + "' class='navItem class " +
-                                   model.getScope() + "' onclick=\"goToLocation('" + fileName + ".html');\">" +
-                                   "<a href='javascript:void(0)'>" + fileName + "</a></li>";
-                    }
+            out.write("</summary>");
+            out.write("<ul>");
+
+            for (TopLevelModel model : cg.getModels()) {
+                if (model.getNameLine() != null && model.getNameLine().trim().length() > 0) {
+                    String fileName = model.getName();
+                    out.write("<li id='item-").write(fileName).write("' class='navItem class ")
+                       .write(model.getScope()).write("' onclick=\"goToLocation('").write(fileName).write(".html');\">")
+                       .write("<a href='javascript:void(0)'>").write(fileName).write("</a></li>");
                 }
             }
 
-            contents+= "</ul></details>";
+            out.write("</ul></details>");
         }
 
-        contents+= "</nav></div>";
-        contents+= "</td>";
-
-        return contents;
+        out.write("</nav>");
     }
 
-    private static String maybeMakeSourceLink(ApexModel model, String className, String modelName) {
-        if (hostedSourceURL != null && !hostedSourceURL.equals("")) {
-            // if user leaves off trailing slash, save the day!
-            if (!hostedSourceURL.endsWith("/")) hostedSourceURL += "/";
-            return "<a target='_blank' title='Go to source' class='hostedSourceLink' href='" +
-                    hostedSourceURL + className + ".cls#L" + model.getLineNum() + "'>" +
-                    modelName + "</a>";
+    private void writeSourceLink(HTMLBuffer out, ApexModel model, String className, String modelName) throws IOException {
+        String hostedSourceURL = config.getHostedSourceURL();
+        if (!hostedSourceURL.equals("")) {
+            // if user leaves off trailing slash, save the day! (without
+            // mutating shared state, since pages may render concurrently)
+            out.write(SOURCE_LINK_OPEN).write(hostedSourceURL);
+            if (!hostedSourceURL.endsWith("/")) out.write("/");
+            out.write(className).write(".cls#L").write(model.getLineNum()).write("'>").write(modelName).write("</a>");
         } else {
-            return "<span>" + modelName + "</span>";
+            out.write("<span>").write(modelName).write("</span>");
         }
     }
 
-    private static String makeSeeLinks(TreeMap<String, TopLevelModel> modelMap, ArrayList<TopLevelModel> models, String qualifiersStr) throws IllegalArgumentException {
+    public static String makeSeeLinks(SymbolTable symbols, String qualifiersStr) throws IllegalArgumentException {
         String exceptionMessage =
             "Each comma separated qualifier of the @see token must be a fully qualified class " +
             "or method name, with a minimum of 1 part and a maximum of 3. E.g. MyClassName, " +
@@ -535,9 +729,8 @@ public class DocGen {
 
         // iterate over each qualifier and process
         // we could just take the users qualifiers and assume its a valid path
-        // but this could easily result in dead links. This algorithm doesn't
-        // exactly scream efficiency, but its still fast on moderate codebases
-        // and its better than the alternative of dead links all over the place.
+        // but this could easily result in dead links. Instead, only link to
+        // names which the symbol table can resolve.
         for (String qualifier : qualifiers) {
             qualifier = qualifier.trim();
 
@@ -566,7 +759,7 @@ public class DocGen {
             // to the 4th overload (zero-based) of that method. This syntax is only required
             // to specify a method other than the 1st. Otherwise SomeClass.SomeMethod is fine
             int overloadSelector = 0;
-            if (qualifier.matches(".*\\[\\d+\\]$")) {
+            if (Patterns.OVERLOAD_SELECTOR.matcher(qualifier).find()) {
                 int i = qualifier.lastIndexOf('[');
                 // isolate the number inside the brackets
                 String selector = qualifier.substring(i+1, qualifier.length() - 1);
@@ -582,93 +775,14 @@ public class DocGen {
                 throw new IllegalArgumentException(exceptionMessage);
             }
 
-            String href = "";
-            boolean foundMatch = false;
-
-            // 4.A) if first qualifier matches class name, begin search: We've
-            // made the model map in all lowercase to avoid case mis-matching
-            TopLevelModel model = modelMap.get(parts[0].toLowerCase());
-
-            if (model != null) {
-                // if only a single qualifier, stope here
-                if (parts.length == 1) {
-                    href = model.getName() + ".html";
-                    foundMatch = true;
-                }
-
-                // 4.B) otherwise keep searching for a match for the second qualifier as long as
-                // model is not an enum model, in which case there is no searching left to do
-                else if (parts.length >= 2 && model.getModelType() != TopLevelModel.ModelType.ENUM) {
-                    ClassModel Class = (ClassModel) model;
-                    ArrayList<MethodModel> methods = Class.getMethods();
-                    TreeMap<String, ClassModel> childClasses = Class.getChildClassMap();
-
-                    int methodNum = 0;
-                    for (MethodModel method : methods) {
-                        if (method.getMethodName().equalsIgnoreCase(parts[1])) {
-                            // use actual class/methof name to create link to avoid case issues
-                            href = Class.getName() + ".html#" + Class.getName() + "." + method.getMethodName();
-                            // no overload selector, we've made a match!
-                            if (overloadSelector == 0) {
-                                foundMatch = true;
-                                break;
-                            }
-                            // If there's an overload suffix to take into account
-                            // ensure that many overloads of the method actually
-                            // exist before commiting to the method link.
-                            else if (overloadSelector > 0 && methodNum != overloadSelector) {
-                                methodNum++;
-                                continue;
-                            }
-                            // confirmed overload exists. Match!!
-                            else if (methodNum == overloadSelector) {
-                                href += '_' + String.valueOf(overloadSelector);
-                                foundMatch = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    // 4.C) if after searching methods a match hasn't been found
-                    // yet see if child class name matches the second qualifier.
-                    if (!foundMatch) {
-                        // ApexDoc2 stores child class name as 'OuterClass.InnerClass'
-                        // recreate that format below to try to make the match with
-                        String childClassName = parts[0] + "." + parts[1];
-                        ClassModel childClass = childClasses.get(childClassName.toLowerCase());
-
-                        if (childClass != null) {
-                            String[] nameParts = childClass.getName().split("\\.");
-                            // 4.D) If match, and only 2 parts, stop here.
-                            if (parts.length == 2) {
-                                // to ensure the link works, use actual name rather than
-                                // user provided parts in case casing doesn't match
-                                href = nameParts[0] + ".html#" + nameParts[0] + "." + nameParts[1];
-                                foundMatch = true;
-                            }
-                            // 4.E) Otherwise, there must be 3 parts
-                            // attempt to match on child class method.
-                            else {
-                                ArrayList<MethodModel> childMethods = childClass.getMethods();
-                                for (MethodModel method : childMethods) {
-                                    if (method.getMethodName().equalsIgnoreCase(parts[2])) {
-                                        // same as above, use actual name to avoid casing issues
-                                        href = nameParts[0] + ".html#" + childClass.getName() + "."
-                                                + method.getMethodName();
-                                        foundMatch = true;
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+            // 4.A) look the name up in the symbol table, which maps every class, inner
+            // class and method, and each method overload, to the href to link to
+            String href = symbols.getHref(parts, overloadSelector);
 
             // 5) if match made, create link with goToLocation function onclick
             // Otherwise, add span with Tooltip indicating no link could be made
             String link;
-            if (foundMatch) {
+            if (href != null) {
                 link =
                     "<a href='javascript:void(0)' onclick=\"goToLocation" + "('" + href + "')\">" +
                     qualifier + "</a>";
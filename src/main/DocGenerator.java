@@ -0,0 +1,643 @@
+package main;
+
+import main.models.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * @description Generates the documentation for a GeneratorConfig. All of a generation's
+ * state lives in its DocGenerator, and nothing is shared with other instances except
+ * caches of file contents, so several generations may run concurrently in one JVM, e.g.
+ * in a build plugin or a documentation service. Problems are reported by throwing, never
+ * by exiting. An instance runs one generation at a time; generate again to rebuild, which
+ * reuses the models kept from the last build where the sources are unchanged.
+ */
+public class DocGenerator {
+    private final GeneratorConfig config;
+    private final List<String> roots;
+    private final FileManager fileManager;
+    private final SourceFinder finder;
+    // where to write, or null to write to the target directory or archive the config names
+    private final OutputSink sink;
+    private ModelCache modelCache;
+    private Metrics metrics = new Metrics(false);
+    private String bannerContents;
+    private String homeContents;
+    // hash of every option which affects the generated output
+    private String fingerprint;
+    // what the last build produced: each file's model, by absolute path, and its manifest
+    private TreeMap<String, TopLevelModel> lastModels = new TreeMap<String, TopLevelModel>();
+    private Manifest lastManifest;
+    private int numProcessed = 0;
+    // in an incremental build, how many files changed and how many more were re-parsed only
+    // for the @see links into them; -1 when the last build wasn't incremental
+    private int numChanged = -1;
+    private int numReparsed = -1;
+
+    // what a generation did
+    public static class Result {
+        private final int filesProcessed;
+        private final int filesChanged;
+        private final long time;
+
+        private Result(int filesProcessed, int filesChanged, long time) {
+            this.filesProcessed = filesProcessed;
+            this.filesChanged = filesChanged;
+            this.time = time;
+        }
+
+        // the number of Apex files parsed, or loaded from the cache, for this generation
+        public int getFilesProcessed() {
+            return filesProcessed;
+        }
+
+        // the number of those files which changed since the last build. Only differs from
+        // getFilesProcessed() after an incremental build, whose other files were re-parsed
+        // just to resolve the @see links of the pages it re-rendered.
+        public int getFilesChanged() {
+            return filesChanged;
+        }
+
+        // how long generating took, in milliseconds
+        public long getTime() {
+            return time;
+        }
+    }
+
+    public DocGenerator(GeneratorConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * @param config the generation's config
+     * @param sink where to write the documentation, e.g. a MemorySink, instead of the target
+     * directory or archive the config names. It's left open, so it may collect several
+     * generations, and must be closed by the caller.
+     */
+    public DocGenerator(GeneratorConfig config, OutputSink sink) {
+        this.config = config;
+        this.sink = sink;
+        this.roots = config.getSourceDirectories();
+        this.fileManager = new FileManager(config);
+        this.finder = new SourceFinder(config.getIncludes(), config.getExcludes());
+        this.finder.setThreads(config.getThreads());
+    }
+
+    /**
+     * @description generates the documentation into the sink, target directory or archive.
+     * @return how many files were documented, and how long it took
+     * @throws IllegalStateException if the source directories can't be read, parsing fails,
+     * or the documentation can't be written. Nothing is recorded for incremental builds then.
+     */
+    public Result generate() {
+        return generate(false);
+    }
+
+    private Result generate(boolean watching) {
+        StopWatch timer = StopWatch.createStarted();
+
+        // record per-phase timings if asked to
+        metrics = new Metrics(config.getMetricsPath() != null);
+        fileManager.setMetrics(metrics);
+        loadIncludes();
+
+        Manifest previousManifest = config.isIncremental() ? Manifest.load(config.getTargetDirectory()) : null;
+        Manifest manifest = build(previousManifest, config.isIncremental() || watching);
+
+        // record what this run produced for the next incremental run
+        if (config.isIncremental() && manifest != null) {
+            saveManifest(manifest);
+        }
+        lastManifest = manifest;
+
+        // we are done!
+        timer.stop();
+        if (config.getMetricsPath() != null) {
+            try {
+                metrics.save(config.getMetricsPath(), ApexDoc.APEX_DOC_VERSION, timer.getTime());
+                Utils.log("Metrics written to " + config.getMetricsPath());
+            } catch (IOException ex) {
+                Utils.log(ex);
+            }
+        }
+
+        if (numChanged < 0) {
+            Utils.log("ApexDoc2 complete! " + numProcessed + " Apex files processed in " + timer.getTime() + " ms.");
+            return new Result(numProcessed, numProcessed, timer.getTime());
+        }
+        Utils.log("ApexDoc2 complete! " + numChanged + " changed Apex files processed, " + numReparsed +
+            " re-parsed for links, in " + timer.getTime() + " ms.");
+        return new Result(numChanged + numReparsed, numChanged, timer.getTime());
+    }
+
+    // loads the optional banner and home pages, and everything else a build depends on
+    private void loadIncludes() {
+        // @group-content files may have been added or removed since an earlier generation
+        // in this JVM, so existence checks are only remembered for the length of one
+        IncludeLoader.clearExistenceChecks();
+        bannerContents = IncludeLoader.getBody(config.getBannerFilePath());
+        homeContents = IncludeLoader.getBody(config.getHomeFilePath());
+
+        // in incremental mode, compare against the manifest left by the last run and
+        // only parse and render what changed. Changed options, or any change to the
+        // menu (added or removed files, or renamed, re-scoped or re-grouped models),
+        // means every page is stale and we fall back to a full build.
+        fingerprint = Manifest.hash(ApexDoc.APEX_DOC_VERSION, String.valueOf(ModelCache.PARSER_VERSION),
+            String.join(",", config.getScopes()), config.getSortOrder(),
+            config.getHostedSourceURL(), config.getDocumentTitle(), String.valueOf(config.getShowMethodTOCDescription()),
+            String.valueOf(config.getSharedMenu()), String.valueOf(config.getGzip()), String.valueOf(config.getSearch()),
+            String.valueOf(config.getLazyDetails()), bannerContents, homeContents);
+
+        // load parsed models cached by previous runs. Scope and the target
+        // directory (for @group-content paths) both affect parsing results.
+        if (config.getUseCache() && modelCache == null) {
+            modelCache = ModelCache.load(config.getTargetDirectory(), Manifest.hash(ApexDoc.APEX_DOC_VERSION,
+                String.valueOf(ModelCache.PARSER_VERSION), String.join(",", config.getScopes()),
+                config.getTargetDirectory()));
+        }
+    }
+
+    /**
+     * @description finds, parses and documents the source files. Called once per run, and
+     * again for each batch of changes in watch mode.
+     * @param previous what the last build produced, either the manifest it left in the
+     * target directory or, in watch mode, the one kept in memory. When it matches the
+     * fingerprint, only what changed since is parsed and rendered. May be null.
+     * @param record whether to build a manifest describing this build
+     * @return the manifest describing this build, or null if it wasn't recorded
+     */
+    private Manifest build(Manifest previous, boolean record) {
+        numProcessed = 0;
+        numChanged = -1;
+        numReparsed = -1;
+        TreeSet<String> pagesToRender = null;
+        ArrayList<TopLevelModel> parsed = null;
+
+        // find all the files to parse. An incremental build must see every file before it
+        // knows which to parse, otherwise files are parsed as soon as they're found.
+        ArrayList<File> files = new ArrayList<File>();
+        boolean isIncremental = previous != null && previous.matches(fingerprint);
+        if (isIncremental) {
+            Metrics.Sample discovery = metrics.begin();
+            files = findFiles();
+            metrics.end(Metrics.DISCOVERY, discovery);
+            pagesToRender = new TreeSet<String>();
+            parsed = parseIncrementally(files, previous, pagesToRender);
+
+            if (parsed == null) {
+                pagesToRender = null;
+                parsed = reparseChanged(files, previous);
+            }
+        } else {
+            parsed = findAndParseFiles(files);
+        }
+
+        ArrayList<TopLevelModel> models = collectModels(parsed);
+
+        // create our Groups
+        Metrics.Sample groups = metrics.begin();
+        TreeMap<String, ClassGroup> classGroupMap = ApexDoc.createGroupNameMap(models, roots.get(0));
+        metrics.end(Metrics.GROUPS, groups);
+
+        // index everything @see tokens can link to
+        Metrics.Sample symbols = metrics.begin();
+        SymbolTable symbolTable = new SymbolTable(models);
+        metrics.end(Metrics.SYMBOLS, symbols);
+
+        // create our set of HTML files. A failed write throws before the model cache and
+        // manifest are saved, so a later incremental build doesn't take pages which were
+        // never written as up to date.
+        try {
+            OutputSink output = openSink();
+            boolean written = false;
+            try {
+                fileManager.createDocs(classGroupMap, symbolTable, models, bannerContents, homeContents, pagesToRender, output);
+                written = true;
+            } finally {
+                // a sink given to this generator is left for its owner to close or abort
+                if (output != sink) {
+                    if (written) {
+                        output.close();
+                    } else {
+                        output.abort();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not write the documentation: " + ex.getMessage(), ex);
+        }
+
+        saveModelCache();
+
+        // keep the models for the next build in this run
+        lastModels = new TreeMap<String, TopLevelModel>();
+        for (int i = 0; i < files.size(); i++) {
+            lastModels.put(files.get(i).getAbsolutePath(), parsed.get(i));
+        }
+
+        if (!record) {
+            return null;
+        }
+
+        try {
+            Manifest manifest = Manifest.build(fingerprint, files, parsed, config, isIncremental ? previous : null);
+            // pages only disappear in a full build, e.g. when a class is deleted, but a class
+            // re-rendered by an incremental one may now write fewer fragments of details
+            if (previous != null) {
+                TreeSet<String> stalePages = previous.getPages();
+                stalePages.removeAll(manifest.getPages());
+                fileManager.deletePages(stalePages, sink != null ? sink : new DirectorySink(config.getTargetDirectory()));
+            }
+            return manifest;
+        } catch (IOException ex) {
+            Utils.log(ex);
+            return null;
+        }
+    }
+
+    /**
+     * @description keeps the models in memory and rebuilds whenever an Apex file in a source
+     * directory is created, changed or deleted, until the calling thread is interrupted.
+     * Each rebuild is incremental: only changed files are re-parsed, and only the pages
+     * they affect are re-rendered, unless the menu changed.
+     * @return the result of the initial build
+     */
+    public Result watch() {
+        if (sink == null && config.getArchivePath() != null) {
+            throw new IllegalStateException("Rebuilds only re-render changed pages, so can't be written to an archive.");
+        }
+
+        Result result = generate(true);
+        Manifest manifest = lastManifest;
+
+        // only the initial build is measured, and rebuilds only log what they change
+        metrics = new Metrics(false);
+        fileManager.setMetrics(metrics);
+        finder.setVerbose(false);
+
+        try (SourceWatcher watcher = new SourceWatcher(roots)) {
+            Utils.log("\nWatching " + String.join(", ", roots) + " for changes. Press Ctrl+C to stop.");
+            while (true) {
+                TreeSet<Path> changed = watcher.awaitChanges();
+                StopWatch timer = StopWatch.createStarted();
+                Utils.log("\nChanged: " + changed.stream()
+                    .map(path -> String.valueOf(path.getFileName()))
+                    .collect(Collectors.joining(", ")));
+
+                // files may have been added to, or removed from, @group-content paths
+                IncludeLoader.clearExistenceChecks();
+                Manifest rebuilt;
+                try {
+                    rebuilt = build(manifest, true);
+                } catch (IllegalStateException ex) {
+                    // keep the last manifest, so the next rebuild re-renders what wasn't written
+                    Utils.log(ex.getMessage() + " Watching for changes.");
+                    continue;
+                }
+
+                if (rebuilt != null) {
+                    manifest = lastManifest = rebuilt;
+                    if (config.isIncremental()) {
+                        saveManifest(manifest);
+                    }
+                }
+
+                timer.stop();
+                Utils.log("Rebuilt in " + timer.getTime() + " ms. Watching for changes.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not watch the source directories: " + ex.getMessage(), ex);
+        }
+
+        return result;
+    }
+
+    /**
+     * @description parses the source files and starts serving their documentation over
+     * HTTP. Nothing is written to the target directory; each page is rendered when it's
+     * first requested.
+     * @param port the port to listen on
+     * @return the running server, which serves until it's stopped
+     */
+    public PreviewServer serve(int port) throws IOException {
+        loadIncludes();
+        numProcessed = 0;
+
+        ArrayList<File> files = new ArrayList<File>();
+        ArrayList<TopLevelModel> models = collectModels(findAndParseFiles(files));
+        TreeMap<String, ClassGroup> classGroupMap = ApexDoc.createGroupNameMap(models, roots.get(0));
+        SymbolTable symbolTable = new SymbolTable(models);
+        saveModelCache();
+
+        PreviewServer server = new PreviewServer(port,
+            fileManager.createPages(classGroupMap, symbolTable, models, bannerContents, homeContents, null),
+            fileManager.createScripts(classGroupMap, models),
+            PreviewServer.DEFAULT_CACHE_BYTES, config.getThreads());
+        server.start();
+        Utils.log("\nServing " + numProcessed + " Apex files at http://localhost:" + server.getPort() +
+            "/ Press Ctrl+C to stop.");
+        return server;
+    }
+
+    // the sink given, or a new one for the archive or target directory the config names
+    private OutputSink openSink() throws IOException {
+        if (sink != null) {
+            return sink;
+        }
+        return config.getArchivePath() != null
+            ? ArchiveSink.create(config.getArchivePath())
+            : new DirectorySink(config.getTargetDirectory());
+    }
+
+    // the models parsed from each file, without files which produced none
+    private ArrayList<TopLevelModel> collectModels(ArrayList<TopLevelModel> parsed) {
+        ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
+        parsed.stream().forEach(model -> {
+            if (model != null) {
+                models.add(model);
+                if (!Manifest.isStandIn(model)) numProcessed++;
+            }
+        });
+        return models;
+    }
+
+    private void saveModelCache() {
+        if (modelCache != null) {
+            try {
+                Utils.log(modelCache.getHits() + " Apex files loaded from the model cache.");
+                modelCache.save(config.getTargetDirectory());
+            } catch (IOException ex) {
+                Utils.log(ex);
+            }
+        }
+    }
+
+    private void saveManifest(Manifest manifest) {
+        try {
+            manifest.save(config.getTargetDirectory());
+        } catch (IOException ex) {
+            Utils.log(ex);
+        }
+    }
+
+    // finds the files to document, sorted by path
+    private ArrayList<File> findFiles() {
+        try {
+            return finder.find(roots, null);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read the source directory: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @description finds the files to document and, when more than one thread is available,
+     * parses each on a bounded pool as soon as it's found, so parsing overlaps discovery.
+     * @param files populated with the files found, sorted by path
+     * @return a model for each file in the same order as files
+     */
+    private ArrayList<TopLevelModel> findAndParseFiles(ArrayList<File> files) {
+        int threads = config.getThreads();
+        if (threads <= 1) {
+            Metrics.Sample discovery = metrics.begin();
+            files.addAll(findFiles());
+            metrics.end(Metrics.DISCOVERY, discovery);
+            return parseFiles(files);
+        }
+
+        ConcurrentHashMap<File, Future<TopLevelModel>> parsing = new ConcurrentHashMap<File, Future<TopLevelModel>>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Metrics.Sample discovery = metrics.begin();
+            try {
+                files.addAll(finder.find(roots, file -> parsing.put(file, pool.submit(() -> parseFile(file)))));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not read the source directory: " + ex.getMessage(), ex);
+            }
+            metrics.end(Metrics.DISCOVERY, discovery);
+
+            ArrayList<Future<TopLevelModel>> futures = new ArrayList<Future<TopLevelModel>>();
+            files.stream().forEach(file -> futures.add(parsing.get(file)));
+            return await(futures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @description parses each file into a model, returning the models in the same
+     * order as the files were given (with nulls for files that failed to parse).
+     * When more than one thread is requested, files are parsed on a bounded pool,
+     * but results are still collected in file order so that output is identical
+     * to a sequential run.
+     * @param files the files to parse
+     */
+    private ArrayList<TopLevelModel> parseFiles(ArrayList<File> files) {
+        ArrayList<TopLevelModel> parsed = new ArrayList<TopLevelModel>();
+        int threads = config.getThreads();
+
+        if (threads <= 1 || files.size() <= 1) {
+            files.stream().forEach(file -> parsed.add(parseFile(file)));
+            return parsed;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        try {
+            ArrayList<Future<TopLevelModel>> futures = new ArrayList<Future<TopLevelModel>>();
+            for (File file : files) {
+                futures.add(pool.submit(() -> parseFile(file)));
+            }
+            return await(futures);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // collects the results of parsing, in order
+    private static ArrayList<TopLevelModel> await(ArrayList<Future<TopLevelModel>> futures) {
+        ArrayList<TopLevelModel> parsed = new ArrayList<TopLevelModel>();
+        try {
+            for (Future<TopLevelModel> future : futures) {
+                parsed.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parsing was interrupted before all files were processed.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Parsing failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+        return parsed;
+    }
+
+    /**
+     * @description parses only what an incremental run needs, using the previous run's
+     * manifest. Files which changed are re-parsed, along with every file whose page must be
+     * re-rendered because it has an @see link to one of them, and the files those pages
+     * link to (so their links resolve against full models). Every other file is stood in
+     * for by its manifest entry, which is enough to build the menu.
+     * @param files the files to document, in discovery order
+     * @param manifest the manifest left by the last run
+     * @param pagesToRender populated with the pages which must be re-rendered
+     * @return a model for each file in the same order as files, or null if every page
+     * is stale and a full build is needed instead
+     */
+    private ArrayList<TopLevelModel> parseIncrementally(ArrayList<File> files, Manifest manifest,
+            TreeSet<String> pagesToRender) {
+
+        // any file added or removed since the last run changes the menu
+        TreeMap<String, File> pathToFile = new TreeMap<String, File>();
+        files.stream().forEach(file -> pathToFile.put(file.getAbsolutePath(), file));
+        if (pathToFile.size() != files.size() || !pathToFile.keySet().equals(manifest.getPaths())) {
+            return null;
+        }
+
+        // 1) re-parse the files whose contents changed
+        ArrayList<File> changed = new ArrayList<File>();
+        try {
+            for (File file : files) {
+                if (!manifest.get(file.getAbsolutePath()).isUnchanged(file)) {
+                    changed.add(file);
+                }
+            }
+        } catch (IOException ex) {
+            Utils.log(ex);
+            return null;
+        }
+
+        TreeMap<String, TopLevelModel> reparsed = new TreeMap<String, TopLevelModel>();
+        parseInto(reparsed, changed);
+
+        // 2) if a changed file's menu item changed, every page's menu is stale
+        TreeSet<String> changedNames = new TreeSet<String>();
+        for (File file : changed) {
+            Manifest.Entry entry = manifest.get(file.getAbsolutePath());
+            if (!entry.hasSameMenuEntry(reparsed.get(entry.getPath()))) {
+                return null;
+            }
+            if (entry.getName() != null) {
+                changedNames.add(entry.getName().toLowerCase());
+            }
+        }
+
+        // 3) re-render the changed files' pages, and the pages which link to them
+        TreeSet<String> dirty = new TreeSet<String>(reparsed.keySet());
+        for (Manifest.Entry entry : manifest.getEntries()) {
+            if (!Collections.disjoint(entry.getSeeTargets(), changedNames)) {
+                dirty.add(entry.getPath());
+            }
+        }
+
+        // 4) parse those pages' files, and the files their @see links point at
+        TreeMap<String, String> nameToPath = manifest.getNameToPath();
+        TreeSet<String> needed = new TreeSet<String>(dirty);
+        for (String path : dirty) {
+            TreeSet<String> targets = reparsed.containsKey(path)
+                ? Manifest.collectSeeTargets(reparsed.get(path))
+                : manifest.get(path).getSeeTargets();
+            for (String target : targets) {
+                if (nameToPath.containsKey(target)) {
+                    needed.add(nameToPath.get(target));
+                }
+            }
+        }
+
+        // unless watch mode still has their models from the last build
+        needed.removeAll(reparsed.keySet());
+        ArrayList<File> unchanged = new ArrayList<File>();
+        for (String path : needed) {
+            if (isParsed(lastModels.get(path))) {
+                reparsed.put(path, lastModels.get(path));
+            } else {
+                unchanged.add(pathToFile.get(path));
+            }
+        }
+        parseInto(reparsed, unchanged);
+
+        // 5) stand in for everything else with its manifest entry, or its model from the last build
+        ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            TopLevelModel model = reparsed.containsKey(path) ? reparsed.get(path)
+                : isParsed(lastModels.get(path)) ? lastModels.get(path)
+                : manifest.get(path).toModel();
+            if (model != null && dirty.contains(path)) {
+                pagesToRender.add(model.getName());
+            }
+            models.add(model);
+        }
+
+        numChanged = changed.size();
+        numReparsed = unchanged.size();
+        Utils.log("\nIncremental build: " + changed.size() + " of " + files.size() + " files changed, " +
+            pagesToRender.size() + " pages to re-render.\n");
+
+        return models;
+    }
+
+    /**
+     * @description parses the files for a full build after an incremental one wasn't
+     * possible. Unchanged files whose models were kept by the last build in this run are
+     * not parsed again.
+     * @param files the files to document, in discovery order
+     * @param manifest the manifest left by the last build
+     * @return a model for each file in the same order as files
+     */
+    private ArrayList<TopLevelModel> reparseChanged(ArrayList<File> files, Manifest manifest) {
+        TreeMap<String, TopLevelModel> pathToModel = new TreeMap<String, TopLevelModel>();
+        ArrayList<File> changed = new ArrayList<File>();
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            Manifest.Entry entry = manifest.get(path);
+            try {
+                if (isParsed(lastModels.get(path)) && entry != null && entry.isUnchanged(file)) {
+                    pathToModel.put(path, lastModels.get(path));
+                    continue;
+                }
+            } catch (IOException ex) {
+                Utils.log(ex);
+            }
+            changed.add(file);
+        }
+        parseInto(pathToModel, changed);
+
+        ArrayList<TopLevelModel> models = new ArrayList<TopLevelModel>();
+        files.stream().forEach(file -> models.add(pathToModel.get(file.getAbsolutePath())));
+        return models;
+    }
+
+    // whether a model from the last build was parsed, rather than stood in for
+    private static boolean isParsed(TopLevelModel model) {
+        return model != null && !Manifest.isStandIn(model);
+    }
+
+    // parse a file, or load its model from the cache if it's unchanged
+    private TopLevelModel parseFile(File file) {
+        Metrics.Sample sample = metrics.begin();
+        TopLevelModel model = modelCache != null
+            ? modelCache.parse(file, config)
+            : ApexDoc.parseFileContents(file.getAbsolutePath(), config);
+        metrics.end(Metrics.PARSE, file.getName(), sample);
+        return model;
+    }
+
+    // parse files, mapping each file's absolute path to its model
+    private void parseInto(TreeMap<String, TopLevelModel> pathToModel, ArrayList<File> files) {
+        ArrayList<TopLevelModel> parsed = parseFiles(files);
+        for (int i = 0; i < files.size(); i++) {
+            pathToModel.put(files.get(i).getAbsolutePath(), parsed.get(i));
+        }
+    }
+}
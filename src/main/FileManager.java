@@ -1,67 +1,218 @@
 package main;
 
 import main.models.*;
-import java.io.BufferedReader;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class FileManager {
-    private String path;
-    private String documentTitle = "ApexDocs";
-    private FileOutputStream fileOutputStream;
-    private DataOutputStream dataOutputStream;
-
-    public FileManager(String path) {
-        if (path == null || path.trim().length() == 0) {
-            this.path = ".";
-        } else {
-            this.path = path;
-        }
+    private final String documentTitle;
+    private final int threads;
+    private final boolean sharedMenu;
+    private final boolean gzip;
+    private final boolean gzipResources;
+    private final boolean search;
+    private final boolean sortAlphabetically;
+    private final DocGen docGen;
+    private Metrics metrics = new Metrics(false);
+    // compresses each file written, while writing with gzip enabled
+    private Compressor compressor;
+
+    // each thread renders its pages into its own buffer, reused from page to page
+    private final ThreadLocal<HTMLBuffer> buffers = ThreadLocal.withInitial(HTMLBuffer::new);
+    private static final byte[] FOOTER = HTMLBuffer.encode(HTML.FOOTER);
+
+    // the static files every page uses, copied to the target directory from main/resources
+    public static final List<String> RESOURCES = Collections.unmodifiableList(Arrays.asList(
+        "apex_doc_2_logo.png", "favicon.png", "index.css", "index.js", "highlight.css", "highlight.js"));
+
+    // writes a single page's HTML, piece by piece, to the given buffer
+    public interface Page {
+        void write(HTMLBuffer out) throws IOException;
     }
 
-    public void setDocumentTitle(String documentTitle) {
-        if (documentTitle != null && documentTitle.trim().length() > 0) {
-            this.documentTitle = documentTitle;
-        }
+    /**
+     * @param config the generation's config. Pages are written on as many threads as it
+     * allows, the menu is emitted once if it asks for a shared menu, and a gzip compressed
+     * copy of each file is written if it asks for gzip. A search index is written if it
+     * asks for search.
+     */
+    public FileManager(GeneratorConfig config) {
+        this.documentTitle = config.getDocumentTitle().trim().length() > 0 ? config.getDocumentTitle() : "ApexDocs";
+        this.threads = config.getThreads();
+        this.sharedMenu = config.getSharedMenu();
+        this.gzip = config.getGzip();
+        this.gzipResources = config.getGzipResources();
+        this.search = config.getSearch();
+        this.sortAlphabetically = config.isSortedAlphabetically();
+        this.docGen = new DocGen(config);
     }
 
-    private boolean createHTML(TreeMap<String, String> mapFNameToContent) {
-        try {
-            (new File(path)).mkdirs();
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
 
+    /**
+     * @description renders and writes each page. Pages are encoded straight into a
+     * reusable byte buffer as they are rendered, which is flushed to the sink as it fills,
+     * so no page is ever held in memory as a whole, as a String or otherwise, unless the
+     * sink collects it. When more than one thread is available, pages are rendered and
+     * written concurrently. With gzip enabled, each file the sink writes to disk is
+     * compressed in the background as soon as it's written.
+     * @param pages map of file name to the page to write
+     * @param scripts map of file name to generated script, i.e. menu.js and the search index
+     * @param sink where to write the pages and resources
+     * @throws IOException if any file couldn't be written
+     */
+    private void createHTML(TreeMap<String, Page> pages, TreeMap<String, String> scripts, OutputSink sink)
+            throws IOException {
+        compressor = gzip ? new Compressor(threads, metrics) : null;
+        try {
             Utils.log("\nGenerating HTML...\n");
-            for (String fileName : mapFNameToContent.keySet()) {
-                String contents = mapFNameToContent.get(fileName);
-                String fullyQualifiedFileName = path + fileName + ".html";
-                File file = new File(fullyQualifiedFileName);
-                fileOutputStream = new FileOutputStream(file);
-                dataOutputStream = new DataOutputStream(fileOutputStream);
-                dataOutputStream.write(contents.getBytes());
-                dataOutputStream.close();
-                fileOutputStream.close();
-                Utils.log(fileName + ".html" + " Generated...");
+            for (String fileName : scripts.keySet()) {
+                writeScript(sink, fileName, scripts.get(fileName));
+            }
+
+            if (threads <= 1 || pages.size() <= 1) {
+                for (String fileName : pages.keySet()) {
+                    writePage(sink, fileName, pages.get(fileName));
+                }
+            } else {
+                ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, pages.size()));
+                try {
+                    ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+                    for (String fileName : pages.keySet()) {
+                        Page page = pages.get(fileName);
+                        futures.add(pool.submit(() -> {
+                            writePage(sink, fileName, page);
+                            return null;
+                        }));
+                    }
+
+                    for (Future<Void> future : futures) {
+                        future.get();
+                    }
+                } catch (ExecutionException ex) {
+                    throw unwrap(ex);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while writing the documentation.");
+                } finally {
+                    // after a failure, stop writing, but wait for the pages still being
+                    // written so nothing writes to the sink once it's closed or aborted
+                    pool.shutdownNow();
+                    awaitTermination(pool);
+                }
             }
 
             Utils.log(""); // print new line
 
-            copy(path);
-            return true;
-        } catch (Exception e) {
-            e.printStackTrace();
+            Metrics.Sample sample = metrics.begin();
+            copy(sink);
+            metrics.end(Metrics.COPY, sample);
+
+            if (compressor != null) {
+                Utils.log(compressor.finish() + " files compressed, the rest were unchanged.");
+            }
+        } finally {
+            if (compressor != null) {
+                compressor.close();
+                compressor = null;
+            }
+        }
+    }
+
+    private static void awaitTermination(ExecutorService pool) throws InterruptedIOException {
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the documentation.");
+        }
+    }
+
+    // the exception a page's writer failed with, as thrown by createHTML
+    private static IOException unwrap(ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private void writePage(OutputSink sink, String fileName, Page page) throws IOException {
+        Metrics.Sample sample = metrics.begin();
+        writeFile(sink, fileName, page);
+        metrics.end(Metrics.WRITE, sample);
+    }
+
+    private void writeFile(OutputSink sink, String fileName, Page page) throws IOException {
+        HTMLBuffer out = buffers.get();
+        OutputStream stream = sink.open(fileName);
+        out.open(stream);
+        try {
+            page.write(out);
+        } catch (IOException | RuntimeException | Error ex) {
+            // don't let the sink keep a partly written file, e.g. as an archive entry
+            out.release();
+            sink.discard(fileName, stream);
+            throw ex;
         }
+        out.close();
+        Utils.log(fileName + " Generated...");
+        compress(sink, fileName);
+    }
 
-        return false;
+    /**
+     * @description writes a generated script, unless the sink already has a file on disk
+     * with the same contents. A search index is mostly unchanged from one incremental
+     * build to the next, so most of its shards are left as they are.
+     */
+    private void writeScript(OutputSink sink, String fileName, String script) throws IOException {
+        byte[] contents = script.getBytes(StandardCharsets.UTF_8);
+        File file = sink.getFile(fileName);
+        if (file != null && file.length() == contents.length
+            && Arrays.equals(Files.readAllBytes(file.toPath()), contents)) {
+            compress(sink, fileName);
+            return;
+        }
+
+        writeFile(sink, fileName, out -> out.write(contents));
+    }
+
+    // compresses a file the sink has written to disk, while writing with gzip enabled
+    private void compress(OutputSink sink, String fileName) {
+        File file = sink.getFile(fileName);
+        if (compressor != null && file != null) {
+            compressor.submit(file);
+        }
+    }
+
+    public void createDocs(TreeMap<String, ClassGroup> groupNameMap, SymbolTable symbols,
+            ArrayList<TopLevelModel> models, String bannerPage, String homeContents, OutputSink sink)
+            throws IOException {
+        createDocs(groupNameMap, symbols, models, bannerPage, homeContents, null, sink);
     }
 
     /**
@@ -70,210 +221,250 @@ public class FileManager {
      * @param models
      * @param bannerPage
      * @param homeContents
-     * @param hostedSourceURL
+     * @param pagesToRender the model pages to render, or null to render every page. When
+     * given, the home page is not re-rendered, but class group content pages always are.
+     * @param sink where to write the pages and resources. It's left open.
+     * @throws IOException if any file couldn't be written, in which case the output is incomplete
      */
-    public void createDocs(TreeMap<String, ClassGroup> groupNameMap, TreeMap<String, TopLevelModel> modelMap,
-            ArrayList<TopLevelModel> models, String bannerPage, String homeContents) {
-
-        String links = "<table width='100%'>";
-        links += DocGen.makeHTMLScopingPanel();
-        links += "<tr style='vertical-align:top;' >";
-        links += DocGen.makeMenu(groupNameMap, models);
-
-        if (homeContents != null && homeContents.trim().length() > 0) {
-            homeContents = links + "<td class='contentTD'>" + "<h2 class='sectionTitle'>Home</h2>" + homeContents + "</td>";
-            homeContents = DocGen.makeHeader(bannerPage, this.documentTitle) + homeContents + HTML.FOOTER;
-        } else {
-            homeContents = HTML.DEFAULT_HOME_CONTENTS;
-            homeContents = links + "<td class='contentTD'>" + "<h2 class='sectionTitle'>Home</h2>" + homeContents + "</td>";
-            homeContents = DocGen.makeHeader(bannerPage, this.documentTitle) + homeContents + HTML.FOOTER;
+    public void createDocs(TreeMap<String, ClassGroup> groupNameMap, SymbolTable symbols,
+            ArrayList<TopLevelModel> models, String bannerPage, String homeContents, Set<String> pagesToRender,
+            OutputSink sink) throws IOException {
+
+        createHTML(createPages(groupNameMap, symbols, models, bannerPage, homeContents, pagesToRender),
+            createScripts(groupNameMap, models), sink);
+    }
+
+    /**
+     * @description creates the scripts generated from the models, rather than copied from
+     * main/resources: menu.js when the menu is shared, and the search index when search is
+     * enabled. The search index always covers every model, including those of unchanged
+     * files in an incremental build.
+     * @return map of file name, relative to the target directory, to script
+     */
+    public TreeMap<String, String> createScripts(TreeMap<String, ClassGroup> groupNameMap,
+            ArrayList<TopLevelModel> models) {
+
+        TreeMap<String, String> scripts = new TreeMap<String, String>();
+        if (sharedMenu) {
+            scripts.put(HTML.MENU_SCRIPT, createMenuScript(groupNameMap));
+        }
+
+        if (search) {
+            Metrics.Sample sample = metrics.begin();
+            SearchIndex index = new SearchIndex(sortAlphabetically);
+            for (TopLevelModel model : models) {
+                index.add(model);
+            }
+            scripts.putAll(index.makeScripts());
+            metrics.end(Metrics.SEARCH, sample);
         }
+        return scripts;
+    }
+
+    // the contents of menu.js, which renders the menu into each page when it's shared
+    public String createMenuScript(TreeMap<String, ClassGroup> groupNameMap) {
+        Metrics.Sample sample = metrics.begin();
+        try {
+            return DocGen.makeMenuScript(groupNameMap);
+        } catch (IOException e) {
+            // only ever rendered in memory
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.end(Metrics.MENU, sample);
+        }
+    }
+
+    /**
+     * @description creates the home, class group content and model pages, without
+     * rendering them. Each page is only rendered when it's written, so pages can be
+     * written to disk, or rendered on demand, e.g. by the preview server.
+     * @param pagesToRender the model pages to create, or null to create every page. When
+     * given, the home page is not created, but class group content pages always are.
+     * Classes whose method details are fetched as they're needed also get a page for
+     * each fragment of their details.
+     * @return map of file name to the page to write there
+     */
+    public TreeMap<String, Page> createPages(TreeMap<String, ClassGroup> groupNameMap, SymbolTable symbols,
+            ArrayList<TopLevelModel> models, String bannerPage, String homeContents, Set<String> pagesToRender) {
 
-        String fileName = "";
-        TreeMap<String, String> fileMap = new TreeMap<String, String>();
-        fileMap.put("index", homeContents);
+        // the header and menu are the same on every page, so encode them just once
+        byte[] header = HTMLBuffer.encode(DocGen.makeHeader(bannerPage, this.documentTitle));
+        Metrics.Sample sample = metrics.begin();
+        byte[] links;
+        try {
+            links = HTMLBuffer.render(out -> {
+                out.write("<table width='100%'>");
+                out.write(docGen.makeHTMLScopingPanel());
+                out.write("<tr style='vertical-align:top;' >");
+                if (sharedMenu) {
+                    DocGen.makeSharedMenu(out);
+                } else {
+                    DocGen.makeMenu(out, groupNameMap);
+                }
+            });
+        } catch (IOException e) {
+            // only ever rendered in memory
+            throw new UncheckedIOException(e);
+        }
+        metrics.end(Metrics.MENU, sample);
+
+        String home = homeContents != null && homeContents.trim().length() > 0
+            ? homeContents
+            : HTML.DEFAULT_HOME_CONTENTS;
+
+        // map each file name to the page to write there. Pages are only rendered
+        // when written, and as before, a later page replaces any earlier page
+        // with the same file name.
+        TreeMap<String, Page> pages = new TreeMap<String, Page>();
+        if (pagesToRender == null) {
+            pages.put("index.html", out -> {
+                out.write(header);
+                out.write(links);
+                out.write("<td class='contentTD'>" + "<h2 class='sectionTitle'>Home</h2>");
+                out.write(home);
+                out.write("</td>");
+                out.write(FOOTER);
+            });
+        }
 
         // create our Class Group content files
-        createClassGroupContent(fileMap, links, bannerPage, groupNameMap);
+        createClassGroupContent(pages, links, header, groupNameMap);
 
         for (TopLevelModel model : models) {
-            String contents = links;
-            if (model.getNameLine() != null && model.getNameLine().length() > 0) {
-                fileName = model.getName();
-                contents += "<td class='contentTD'>";
+            if (model.getNameLine() != null && model.getNameLine().length() > 0
+                && (pagesToRender == null || pagesToRender.contains(model.getName()))) {
+                pages.put(model.getName() + ".html", out -> {
+                    out.write(header);
+                    out.write(links);
+                    out.write("<td class='contentTD'>");
+                    Metrics.Sample render = metrics.begin();
+                    documentModel(out, model, symbols);
+                    metrics.end(Metrics.RENDER, model.getName(), render);
+                    out.write("</div>");
+                    out.write(FOOTER);
+                });
 
-                if (model.getModelType() == TopLevelModel.ModelType.CLASS) {
+                if (model instanceof ClassModel) {
+                    createDetailsFragments(pages, (ClassModel) model, symbols);
+                }
+            }
+        }
 
-                    ClassModel cModel = (ClassModel) model;
-                    contents += DocGen.documentClass(cModel, modelMap, models);
+        return pages;
+    }
 
-                    // get child classes to work with in the order user specifies
-                    ArrayList<ClassModel> childClasses = DocGen.sortOrderStyle.equals(ApexDoc.ORDER_ALPHA)
-                        ? cModel.getChildClassesSorted()
-                        : cModel.getChildClasses();
+    // the fragments of method details of a class, and of its child classes, which has them
+    private void createDetailsFragments(TreeMap<String, Page> pages, ClassModel cModel, SymbolTable symbols) {
+        if (docGen.hasLazyDetails(cModel)) {
+            for (int i = 0; i < DocGen.countDetailsFragments(cModel); i++) {
+                int fragment = i;
+                String fileName = DocGen.makeDetailsFileName(cModel, fragment);
+                pages.put(fileName, out -> {
+                    Metrics.Sample render = metrics.begin();
+                    docGen.documentMethodDetails(out, cModel, fragment, symbols);
+                    metrics.end(Metrics.RENDER, fileName, render);
+                });
+            }
+        }
 
-                    // map over child classes returning HTML strings
-                    List<String> childClassHTML = childClasses.stream().map(cmChild ->
-                        DocGen.documentClass(cmChild, modelMap, models)).collect(Collectors.toList());
+        for (ClassModel child : cModel.getChildClasses()) {
+            createDetailsFragments(pages, child, symbols);
+        }
+    }
 
-                    // join and concat with contents
-                    contents += String.join("", childClassHTML);
+    private void documentModel(HTMLBuffer out, TopLevelModel model, SymbolTable symbols) throws IOException {
 
-                } else if (model.getModelType() == TopLevelModel.ModelType.ENUM) {
-                    EnumModel eModel = (EnumModel) model;
-                    contents += DocGen.documentEnum(eModel, modelMap, models);
-                }
+        if (model.getModelType() == TopLevelModel.ModelType.CLASS) {
 
-            } else {
-                continue;
+            ClassModel cModel = (ClassModel) model;
+            docGen.documentClass(out, cModel, symbols);
+
+            // get child classes to work with in the order user specifies
+            List<ClassModel> childClasses = sortAlphabetically
+                ? cModel.getChildClassesSorted()
+                : cModel.getChildClasses();
+
+            // write each child class as soon as it's rendered
+            for (ClassModel cmChild : childClasses) {
+                docGen.documentClass(out, cmChild, symbols);
             }
-            contents += "</div>";
 
-            contents = DocGen.makeHeader(bannerPage, this.documentTitle) + contents + HTML.FOOTER;
-            fileMap.put(fileName, contents);
+        } else if (model.getModelType() == TopLevelModel.ModelType.ENUM) {
+            EnumModel eModel = (EnumModel) model;
+            docGen.documentEnum(out, eModel, symbols);
         }
-
-        createHTML(fileMap);
     }
 
     // create our Class Group content files
-    private void createClassGroupContent(TreeMap<String, String> mapFNameToContent, String links, String bannerPage,
+    private void createClassGroupContent(TreeMap<String, Page> pages, byte[] links, byte[] header,
         TreeMap<String, ClassGroup> mapGroupNameToClassGroup) {
 
         mapGroupNameToClassGroup.keySet().stream().forEach(group -> {
             ClassGroup cg = mapGroupNameToClassGroup.get(group);
             if (cg.getContentSource() != null) {
-                String cgContent = parseHTMLFile(cg.getContentSource());
+                String cgContent = IncludeLoader.getBody(cg.getContentSource());
                 if (cgContent != "") {
-
-                    String html =
-                        DocGen.makeHeader(bannerPage, this.documentTitle) + links +
-                        "<td class='contentTD'>" + "<h2 class='sectionTitle'>" +
-                        DocGen.escapeHTML(cg.getName(), false) + "</h2>" + cgContent + "</td>";
-
-                    html += HTML.FOOTER;
-
-                    mapFNameToContent.put(cg.getContentFilename(), html);
+                    pages.put(cg.getContentFilename() + ".html", out -> {
+                        out.write(header);
+                        out.write(links);
+                        out.write("<td class='contentTD'>" + "<h2 class='sectionTitle'>" +
+                            DocGen.escapeHTML(cg.getName(), false) + "</h2>");
+                        out.write(cgContent);
+                        out.write("</td>");
+                        out.write(FOOTER);
+                    });
                 }
             }
         });
     }
 
-    private void doCopy(String source, String target) throws Exception {
-
-        InputStream is = this.getClass().getResourceAsStream("resources/" + source);
-        FileOutputStream to = new FileOutputStream(target + "/" + source);
-
-        byte[] buffer = new byte[4096];
-        int bytesRead;
+    // remove pages generated by a previous run which this run no longer produces,
+    // along with their compressed copies. Pages are named without their .html
+    // extension, while fragments of method details are named by their file name.
+    public void deletePages(Collection<String> pageNames, OutputSink sink) throws IOException {
+        for (String pageName : pageNames) {
+            String fileName = pageName.startsWith(DocGen.DETAILS_DIRECTORY) ? pageName : pageName + ".html";
+            if (sink.delete(fileName)) {
+                Utils.log(fileName + " Deleted...");
+            }
 
-        while ((bytesRead = is.read(buffer)) != -1) {
-            to.write(buffer, 0, bytesRead); // write
+            if (sink.delete(fileName + Compressor.EXTENSION)) {
+                Utils.log(fileName + Compressor.EXTENSION + " Deleted...");
+            }
         }
-
-        to.flush();
-        to.close();
-        is.close();
-    }
-
-    private void copy(String toFileName) throws IOException, Exception {
-        doCopy("apex_doc_2_logo.png", toFileName);
-        doCopy("favicon.png", toFileName);
-        doCopy("index.css", toFileName);
-        doCopy("index.js", toFileName);
-        doCopy("highlight.css", toFileName);
-        doCopy("highlight.js", toFileName);
     }
 
-    public ArrayList<File> getFiles(String path, List<String> includes, List<String> excludes) {
-        File folder = new File(path);
-        ArrayList<File> filesToCopy = new ArrayList<File>();
+    private void doCopy(String source, OutputSink sink) throws IOException {
 
-        try {
-            List<File> files = Arrays.asList(folder.listFiles());
-            Utils.log("\nProcessing files:\n");
-            if (files != null && files.size() > 0) {
-                // decide which files to process. if include/excludes args provided
-                // only process files that pass exclusivity and inclusivity tests
-                files.stream().forEach(file -> {
-                    String fileName = file.getName();
-                    // skip files that are not class files
-                    if (!fileName.endsWith(".cls")) {
-                        return;
-                    }
-
-                    for (String entry : excludes) {
-                        entry = entry.trim().replace("*", "");
-                        // file is explictly excluded or matches wildcard, return early
-                        if (fileName.startsWith(entry) || fileName.endsWith(entry))  {
-                            return;
-                        }
-                    }
+        InputStream is = this.getClass().getResourceAsStream("resources/" + source);
+        OutputStream to = sink.open(source);
 
-                    // no includes params, include file
-                    if (includes.size() == 0) {
-                        Utils.log(fileName);
-                        filesToCopy.add(file);
-                        return;
-                    }
+        byte[] buffer = new byte[4096];
+        int bytesRead;
 
-                    // there are includes params, only include files that pass test
-                    for (String entry : includes) {
-                        entry = entry.trim().replace("*", "");
-                        // file matches explicitly matches or matches wildcard
-                        if (fileName.startsWith(entry) || fileName.endsWith(entry))  {
-                            Utils.log(fileName);
-                            filesToCopy.add(file);
-                        }
-                    }
-                });
-            } else {
-                System.out.println("WARNING: No files found in directory: " + path);
+        try {
+            while ((bytesRead = is.read(buffer)) != -1) {
+                to.write(buffer, 0, bytesRead); // write
             }
-        } catch (SecurityException e) {
-            Utils.log(e);
+        } catch (IOException ex) {
+            sink.discard(source, to);
+            throw ex;
+        } finally {
+            is.close();
         }
-        return filesToCopy;
-    }
 
-    private String parseFile(String filePath) {
-        try {
-            if (filePath != null && filePath.trim().length() > 0) {
-                FileInputStream fstream = new FileInputStream(filePath);
-                DataInputStream input = new DataInputStream(fstream);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                String contents = "";
-                String strLine;
-
-                while ((strLine = reader.readLine()) != null) {
-                    strLine = strLine.trim();
-                    if (strLine != null && strLine.length() > 0) {
-                        contents += strLine;
-                    }
-                }
+        to.flush();
+        to.close();
 
-                reader.close();
-                return contents;
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        // only text resources are worth compressing; images already are
+        if (gzipResources && (source.endsWith(".css") || source.endsWith(".js"))) {
+            compress(sink, source);
         }
-
-        return "";
     }
 
-    public String parseHTMLFile(String filePath) {
-        String contents = (parseFile(filePath)).trim();
-        if (contents != null && contents.length() > 0) {
-            int startIndex = contents.indexOf("<body>");
-            int endIndex = contents.indexOf("</body>");
-            if (startIndex != -1) {
-                if (contents.indexOf("</body>") != -1) {
-                    contents = contents.substring(startIndex, endIndex);
-                    return contents;
-                }
-            }
+    private void copy(OutputSink sink) throws IOException {
+        for (String resource : RESOURCES) {
+            doCopy(resource, sink);
         }
-        return "";
     }
 }
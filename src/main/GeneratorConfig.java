@@ -0,0 +1,340 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @description Everything a generation is configured with, from where the source files are
+ * to how the pages are rendered. Immutable once built, so one config may be shared by every
+ * thread of a generation, and each of several concurrent generations in the same JVM has
+ * its own. Build one with GeneratorConfig.Builder; only the source and target directories
+ * are required.
+ */
+public class GeneratorConfig {
+    private final List<String> sourceDirectories;
+    private final String targetDirectory;
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<String> scopes;
+    private final String hostedSourceURL;
+    private final String homeFilePath;
+    private final String bannerFilePath;
+    private final String documentTitle;
+    private final String sortOrder;
+    private final boolean showMethodTOCDescription;
+    private final int threads;
+    private final boolean incremental;
+    private final boolean useCache;
+    private final boolean sharedMenu;
+    private final boolean gzip;
+    private final boolean gzipResources;
+    private final boolean search;
+    private final int lazyDetails;
+    private final String archivePath;
+    private final String metricsPath;
+
+    private GeneratorConfig(Builder builder) {
+        this.sourceDirectories = Collections.unmodifiableList(new ArrayList<String>(builder.sourceDirectories));
+        this.targetDirectory = builder.targetDirectory;
+        this.includes = Collections.unmodifiableList(new ArrayList<String>(builder.includes));
+        this.excludes = Collections.unmodifiableList(new ArrayList<String>(builder.excludes));
+        this.scopes = Collections.unmodifiableList(new ArrayList<String>(builder.scopes));
+        this.hostedSourceURL = builder.hostedSourceURL;
+        this.homeFilePath = builder.homeFilePath;
+        this.bannerFilePath = builder.bannerFilePath;
+        this.documentTitle = builder.documentTitle;
+        this.sortOrder = builder.sortOrder;
+        this.showMethodTOCDescription = builder.showMethodTOCDescription;
+        this.threads = builder.threads;
+        this.incremental = builder.incremental;
+        this.useCache = builder.useCache;
+        this.sharedMenu = builder.sharedMenu;
+        this.gzip = builder.gzip || builder.gzipResources;
+        this.gzipResources = builder.gzipResources;
+        this.search = builder.search;
+        this.lazyDetails = builder.lazyDetails;
+        this.archivePath = builder.archivePath;
+        this.metricsPath = builder.metricsPath;
+    }
+
+    // the source directories, walked in parallel. Group content paths are relative to the first.
+    public List<String> getSourceDirectories() {
+        return sourceDirectories;
+    }
+
+    // always ends with a path separator
+    public String getTargetDirectory() {
+        return targetDirectory;
+    }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    // the scopes to document, e.g. global and public
+    public List<String> getScopes() {
+        return scopes;
+    }
+
+    public String getHostedSourceURL() {
+        return hostedSourceURL;
+    }
+
+    public String getHomeFilePath() {
+        return homeFilePath;
+    }
+
+    public String getBannerFilePath() {
+        return bannerFilePath;
+    }
+
+    public String getDocumentTitle() {
+        return documentTitle;
+    }
+
+    // ApexDoc.ORDER_ALPHA or ApexDoc.ORDER_LOGICAL
+    public String getSortOrder() {
+        return sortOrder;
+    }
+
+    public boolean isSortedAlphabetically() {
+        return sortOrder.equals(ApexDoc.ORDER_ALPHA);
+    }
+
+    public boolean getShowMethodTOCDescription() {
+        return showMethodTOCDescription;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean getUseCache() {
+        return useCache;
+    }
+
+    public boolean getSharedMenu() {
+        return sharedMenu;
+    }
+
+    // whether to write a gzip compressed copy of each page, and of menu.js
+    public boolean getGzip() {
+        return gzip;
+    }
+
+    // whether to also write compressed copies of the stylesheets and scripts copied to the target directory
+    public boolean getGzipResources() {
+        return gzipResources;
+    }
+
+    // whether to write a search index, and a search box on every page
+    public boolean getSearch() {
+        return search;
+    }
+
+    // the fewest methods a class has for its method details to be fetched as they're needed, or 0 to never
+    public int getLazyDetails() {
+        return lazyDetails;
+    }
+
+    // the archive to write the documentation to instead of the target directory, or null to
+    // write to the target directory. The target directory still holds the model cache.
+    public String getArchivePath() {
+        return archivePath;
+    }
+
+    // where to write the metrics report, or null not to record metrics
+    public String getMetricsPath() {
+        return metricsPath;
+    }
+
+    /**
+     * @description collects the options for a GeneratorConfig. Options which aren't set
+     * keep the same defaults as the command line.
+     */
+    public static class Builder {
+        private List<String> sourceDirectories = new ArrayList<String>();
+        private String targetDirectory;
+        private List<String> includes = new ArrayList<String>();
+        private List<String> excludes = new ArrayList<String>();
+        private List<String> scopes = Arrays.asList(ApexDoc.GLOBAL, ApexDoc.PUBLIC, ApexDoc.WEB_SERVICE);
+        private String hostedSourceURL = "";
+        private String homeFilePath = "";
+        private String bannerFilePath = "";
+        private String documentTitle = "";
+        private String sortOrder = ApexDoc.ORDER_ALPHA;
+        private boolean showMethodTOCDescription = true;
+        private int threads = 1;
+        private boolean incremental = false;
+        private boolean useCache = false;
+        private boolean sharedMenu = false;
+        private boolean gzip = false;
+        private boolean gzipResources = false;
+        private boolean search = false;
+        private int lazyDetails = 0;
+        private String archivePath = null;
+        private String metricsPath = null;
+
+        public Builder setSourceDirectories(List<String> sourceDirectories) {
+            this.sourceDirectories = new ArrayList<String>();
+            for (String directory : sourceDirectories) {
+                if (directory != null && !directory.trim().isEmpty()) {
+                    this.sourceDirectories.add(directory.trim());
+                }
+            }
+            return this;
+        }
+
+        public Builder setTargetDirectory(String targetDirectory) {
+            this.targetDirectory = targetDirectory;
+            return this;
+        }
+
+        public Builder setIncludes(List<String> includes) {
+            this.includes = new ArrayList<String>(includes);
+            return this;
+        }
+
+        public Builder setExcludes(List<String> excludes) {
+            this.excludes = new ArrayList<String>(excludes);
+            return this;
+        }
+
+        // an empty list keeps the default of global, public and webService
+        public Builder setScopes(List<String> scopes) {
+            if (scopes != null && !scopes.isEmpty()) {
+                this.scopes = new ArrayList<String>(scopes);
+            }
+            return this;
+        }
+
+        public Builder setHostedSourceURL(String hostedSourceURL) {
+            this.hostedSourceURL = hostedSourceURL != null ? hostedSourceURL : "";
+            return this;
+        }
+
+        public Builder setHomeFilePath(String homeFilePath) {
+            this.homeFilePath = homeFilePath != null ? homeFilePath : "";
+            return this;
+        }
+
+        public Builder setBannerFilePath(String bannerFilePath) {
+            this.bannerFilePath = bannerFilePath != null ? bannerFilePath : "";
+            return this;
+        }
+
+        public Builder setDocumentTitle(String documentTitle) {
+            this.documentTitle = documentTitle != null ? documentTitle : "";
+            return this;
+        }
+
+        public Builder setSortOrder(String sortOrder) {
+            this.sortOrder = sortOrder;
+            return this;
+        }
+
+        public Builder setShowMethodTOCDescription(boolean showMethodTOCDescription) {
+            this.showMethodTOCDescription = showMethodTOCDescription;
+            return this;
+        }
+
+        public Builder setThreads(int threads) {
+            this.threads = Math.max(1, threads);
+            return this;
+        }
+
+        public Builder setIncremental(boolean incremental) {
+            this.incremental = incremental;
+            return this;
+        }
+
+        public Builder setUseCache(boolean useCache) {
+            this.useCache = useCache;
+            return this;
+        }
+
+        public Builder setSharedMenu(boolean sharedMenu) {
+            this.sharedMenu = sharedMenu;
+            return this;
+        }
+
+        public Builder setGzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        // implies gzip
+        public Builder setGzipResources(boolean gzipResources) {
+            this.gzipResources = gzipResources;
+            return this;
+        }
+
+        public Builder setSearch(boolean search) {
+            this.search = search;
+            return this;
+        }
+
+        // 0 renders every method's details into its class's page
+        public Builder setLazyDetails(int lazyDetails) {
+            this.lazyDetails = Math.max(0, lazyDetails);
+            return this;
+        }
+
+        // a .zip, .tar, .tar.gz or .tgz file
+        public Builder setArchivePath(String archivePath) {
+            this.archivePath = archivePath;
+            return this;
+        }
+
+        public Builder setMetricsPath(String metricsPath) {
+            this.metricsPath = metricsPath;
+            return this;
+        }
+
+        /**
+         * @description checks the options and builds the config.
+         * @throws IllegalArgumentException if there are no source directories or no target
+         * directory, the sort order isn't one of ApexDoc.ORDER_ALPHA or ApexDoc.ORDER_LOGICAL,
+         * or the archive isn't a supported format or is combined with incremental builds or gzip
+         */
+        public GeneratorConfig build() throws IllegalArgumentException {
+            if (sourceDirectories.isEmpty()) {
+                throw new IllegalArgumentException("At least one source directory is required.");
+            }
+
+            if (targetDirectory == null || targetDirectory.isEmpty()) {
+                throw new IllegalArgumentException("A target directory is required.");
+            } else if (!targetDirectory.endsWith("/") && !targetDirectory.endsWith("\\")) {
+                targetDirectory += "/";
+            }
+
+            if (sortOrder == null || !(sortOrder.equalsIgnoreCase(ApexDoc.ORDER_ALPHA) || sortOrder.equalsIgnoreCase(ApexDoc.ORDER_LOGICAL))) {
+                throw new IllegalArgumentException("Sort order '" + sortOrder + "' is invalid. Options are: 'logical' or 'alpha'.");
+            }
+            sortOrder = sortOrder.toLowerCase();
+
+            // an archive is written from scratch every time, and compressed as a whole or not at all
+            if (archivePath != null) {
+                if (!ArchiveSink.isSupported(archivePath)) {
+                    throw new IllegalArgumentException("Archive '" + archivePath + "' must end with .zip, .tar, .tar.gz or .tgz.");
+                } else if (incremental) {
+                    throw new IllegalArgumentException("Incremental builds update the target directory, and can't be written to an archive.");
+                } else if (gzip || gzipResources) {
+                    throw new IllegalArgumentException("Gzip compressed copies can't be written to an archive.");
+                }
+            }
+
+            return new GeneratorConfig(this);
+        }
+    }
+}
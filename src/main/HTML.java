@@ -27,6 +27,9 @@ public class HTML {
         "<center class='footer'><a href='https://github.com/no-stack-dub-sack/ApexDoc2' " +
         "target='_blank'>Powered By ApexDoc2</a></center></body></html>";
 
+    // the script which renders the shared menu, see DocGen.makeSharedMenu
+    public static final String MENU_SCRIPT = "menu.js";
+
     public static final String DEFAULT_HOME_CONTENTS = "<h2>Project Home</h2>";
 
     public static final String EXTERNAL_LINK =
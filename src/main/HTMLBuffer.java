@@ -0,0 +1,148 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @description A reusable, buffered UTF-8 sink which pages are rendered into. Static
+ * markup is written as pre-encoded byte segments (see encode), which are copied straight
+ * into the buffer. Dynamic values are encoded to UTF-8 directly into the buffer as they
+ * are written, so no page, and no intermediate String or byte array, is ever built. The
+ * buffer is flushed to the underlying stream whenever it fills up. One instance may be
+ * opened on many streams in turn, reusing its buffer, but it is not thread safe.
+ */
+public class HTMLBuffer {
+    private static final int DEFAULT_SIZE = 64 * 1024;
+
+    private final byte[] buffer;
+    private int count = 0;
+    private OutputStream out;
+
+    // writes some content to a buffer
+    public interface Content {
+        void write(HTMLBuffer out) throws IOException;
+    }
+
+    public HTMLBuffer() {
+        this(DEFAULT_SIZE);
+    }
+
+    public HTMLBuffer(int size) {
+        this.buffer = new byte[size];
+    }
+
+    public HTMLBuffer(OutputStream out) {
+        this(DEFAULT_SIZE);
+        this.out = out;
+    }
+
+    // pre-encodes static markup, to be written with write(byte[])
+    public static byte[] encode(String markup) {
+        return markup.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // renders content into a new byte array, e.g. to pre-encode markup shared by many pages
+    public static byte[] render(Content content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HTMLBuffer out = new HTMLBuffer(bytes);
+        content.write(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @description points this buffer at a new stream. Anything written since the last
+     * flush is discarded, so close or flush the previous stream first.
+     */
+    public void open(OutputStream out) {
+        this.out = out;
+        this.count = 0;
+    }
+
+    public HTMLBuffer write(byte[] segment) throws IOException {
+        return write(segment, 0, segment.length);
+    }
+
+    public HTMLBuffer write(byte[] segment, int offset, int length) throws IOException {
+        if (length > buffer.length - count) {
+            flushBuffer();
+            if (length > buffer.length) {
+                out.write(segment, offset, length);
+                return this;
+            }
+        }
+
+        System.arraycopy(segment, offset, buffer, count, length);
+        count += length;
+        return this;
+    }
+
+    public HTMLBuffer write(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            // make room for the longest encoding, 4 bytes
+            if (count > buffer.length - 4) {
+                flushBuffer();
+            }
+
+            if (c < 0x80) {
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate can't be encoded, replace it as String.getBytes would
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    public HTMLBuffer write(int number) throws IOException {
+        return write(Integer.toString(number));
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    // lets go of the stream this buffer is open on, without writing to or closing it, e.g.
+    // when rendering failed and the stream is discarded, leaving the buffer free for reuse
+    public void release() {
+        out = null;
+        count = 0;
+    }
+
+    // flushes and closes the stream this buffer is open on, leaving the buffer free for reuse
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            OutputStream stream = out;
+            out = null;
+            count = 0;
+            stream.close();
+        }
+    }
+}
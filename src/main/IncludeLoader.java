@@ -0,0 +1,110 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description Loads the HTML files included in the documentation, i.e. the banner, home
+ * and @group-content pages. Each file is read once, and the region from its opening body
+ * tag to its closing body tag is extracted as it's read, with lines trimmed and joined.
+ * Reading stops at the closing tag. Results are cached by path, and a cached body is
+ * reused for as long as the file's mtime and size are unchanged, so a page shared by many
+ * groups, or included again by a later build, is only read once. Existence checks for
+ * @group-content paths are cached by path too, until a generation clears them as it
+ * starts. Thread safe.
+ */
+public class IncludeLoader {
+    private static final String BODY_OPEN = "<body>";
+    private static final String BODY_CLOSE = "</body>";
+
+    private static final ConcurrentHashMap<String, Include> includes = new ConcurrentHashMap<String, Include>();
+    private static final ConcurrentHashMap<String, Boolean> existing = new ConcurrentHashMap<String, Boolean>();
+
+    // a loaded file, and the mtime and size it was loaded at
+    private static class Include {
+        private final long lastModified;
+        private final long length;
+        private final String body;
+
+        private Include(long lastModified, long length, String body) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.body = body;
+        }
+    }
+
+    /**
+     * @description gets the body of an HTML file.
+     * @param filePath the file to load. May be null or empty.
+     * @return the file's contents from its opening body tag (inclusive) to its closing
+     * body tag (exclusive), with each line trimmed and joined without line breaks. Empty
+     * if there's no path, the file can't be read, or either body tag is missing.
+     */
+    public static String getBody(String filePath) {
+        if (filePath == null || filePath.trim().isEmpty()) {
+            return "";
+        }
+
+        File file = new File(filePath);
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        Include include = includes.get(filePath);
+        if (include == null || include.lastModified != lastModified || include.length != length) {
+            include = new Include(lastModified, length, readBody(filePath));
+            includes.put(filePath, include);
+        }
+        return include.body;
+    }
+
+    /**
+     * @description checks whether a file exists. The answer is remembered, so use this
+     * for paths that are checked repeatedly, and which aren't expected to appear or
+     * disappear during a build. Each generation forgets the answers when it starts.
+     */
+    public static boolean exists(String filePath) {
+        return existing.computeIfAbsent(filePath, path -> new File(path).exists());
+    }
+
+    // forgets which files exist, e.g. before rebuilding after files have been added or removed
+    public static void clearExistenceChecks() {
+        existing.clear();
+    }
+
+    private static String readBody(String filePath) {
+        try {
+            ApexLexer lines = new ApexLexer(SourceReader.read(Paths.get(filePath)));
+            StringBuilder contents = new StringBuilder();
+            boolean inBody = false;
+
+            while (lines.nextLine()) {
+                int appendedAt = contents.length();
+                contents.append(lines.getTrimmedLine());
+
+                if (!inBody) {
+                    int bodyStart = contents.indexOf(BODY_OPEN);
+                    if (bodyStart == -1) {
+                        // only keep enough to find an open tag split across lines
+                        contents.delete(0, Math.max(0, contents.length() - BODY_OPEN.length() + 1));
+                        continue;
+                    }
+                    contents.delete(0, bodyStart);
+                    inBody = true;
+                    appendedAt = BODY_OPEN.length();
+                }
+
+                // only search what's new, allowing for a close tag split across lines
+                int bodyEnd = contents.indexOf(BODY_CLOSE, Math.max(BODY_OPEN.length(), appendedAt - BODY_CLOSE.length() + 1));
+                if (bodyEnd != -1) {
+                    return contents.substring(0, bodyEnd);
+                }
+            }
+        } catch (IOException ex) {
+            Utils.log(ex);
+        }
+
+        return "";
+    }
+}
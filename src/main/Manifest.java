@@ -0,0 +1,502 @@
+package main;
+
+import main.models.*;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @description Records what the last run produced so that incremental runs can skip
+ * unchanged work. For each source file the manifest stores its hash, size and mtime,
+ * the top level model it produced (enough of it to build the menu), the classes its
+ * @see tokens reference, the pages it contributed to, including the fragments of method
+ * details written by --lazy-details, and its search index entries, if search is enabled. The manifest is written to
+ * the target directory as a tab delimited text file, one line per source file.
+ */
+public class Manifest {
+    public static final String FILE_NAME = "apexdoc2.manifest";
+    private static final String HEADER = "ApexDoc2 manifest";
+    private static final String NULL = "\\0";
+
+    private String fingerprint;
+    private TreeMap<String, Entry> entries = new TreeMap<String, Entry>();
+
+    public Manifest(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @description loads the manifest left in the target directory by the last run.
+     * If there isn't one, or it can't be read, an empty manifest is returned.
+     * @param targetDirectory the directory documentation is generated to
+     */
+    public static Manifest load(String targetDirectory) {
+        File file = new File(targetDirectory, FILE_NAME);
+        Manifest manifest = new Manifest(null);
+        if (!file.exists()) {
+            return manifest;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+
+            String[] header = reader.readLine().split("\t", -1);
+            if (header.length != 2 || !header[0].equals(HEADER)) {
+                return manifest;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    Entry entry = Entry.parse(line);
+                    manifest.entries.put(entry.path, entry);
+                }
+            }
+
+            manifest.fingerprint = header[1];
+        } catch (Exception ex) {
+            Utils.log("\nWARNING: could not read " + file.getPath() + ", performing a full build.\n");
+            manifest.entries.clear();
+        }
+
+        return manifest;
+    }
+
+    public void save(String targetDirectory) throws IOException {
+        (new File(targetDirectory)).mkdirs();
+        File file = new File(targetDirectory, FILE_NAME);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+
+            out.write(HEADER + "\t" + fingerprint + "\n");
+            for (Entry entry : entries.values()) {
+                out.write(entry.format());
+                out.write("\n");
+            }
+        }
+    }
+
+    /**
+     * @description builds the manifest describing the current run.
+     * @param fingerprint hash of every option which affects the generated output
+     * @param files the source files documented this run
+     * @param models the model parsed from each file, in the same order as files. Models
+     * which stand in for unchanged files keep the entry they were created from.
+     * @param config the build's config. Its first source directory resolves group content
+     * pages, and when it enables search, each model's search index entries are recorded.
+     * @param previous the manifest of an earlier build with the same fingerprint, whose
+     * entries are kept for files which haven't changed since, or null
+     */
+    public static Manifest build(String fingerprint, List<File> files, List<TopLevelModel> models,
+            GeneratorConfig config, Manifest previous) throws IOException {
+
+        Manifest manifest = new Manifest(fingerprint);
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            TopLevelModel model = models.get(i);
+            Entry previousEntry = previous != null ? previous.get(file.getAbsolutePath()) : null;
+            Entry entry = model instanceof StandInModel ? ((StandInModel) model).entry
+                : previousEntry != null && previousEntry.isUnchanged(file) ? previousEntry
+                : Entry.fromModel(file, model, config);
+            manifest.entries.put(entry.path, entry);
+        }
+
+        return manifest;
+    }
+
+    public boolean matches(String fingerprint) {
+        return this.fingerprint != null && this.fingerprint.equals(fingerprint);
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public Set<String> getPaths() {
+        return entries.keySet();
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    // lower case top level model name to the path of the file which produced it
+    public TreeMap<String, String> getNameToPath() {
+        TreeMap<String, String> map = new TreeMap<String, String>();
+        for (Entry entry : entries.values()) {
+            if (entry.name != null) {
+                map.put(entry.name.toLowerCase(), entry.path);
+            }
+        }
+        return map;
+    }
+
+    public TreeSet<String> getPages() {
+        TreeSet<String> pages = new TreeSet<String>();
+        for (Entry entry : entries.values()) {
+            pages.addAll(entry.pages);
+        }
+        return pages;
+    }
+
+    public static boolean isStandIn(TopLevelModel model) {
+        return model instanceof StandInModel;
+    }
+
+    // the search index entries recorded for the unchanged file a model stands in for
+    public static ArrayList<SearchIndex.Entry> getSearchEntries(TopLevelModel model) {
+        ArrayList<SearchIndex.Entry> entries = new ArrayList<SearchIndex.Entry>();
+        for (String line : ((StandInModel) model).entry.search) {
+            entries.add(SearchIndex.Entry.parse(line));
+        }
+        return entries;
+    }
+
+    /**
+     * @description collects the lower case names of the top level classes referenced by
+     * the @see tokens of a model, its methods, and its child classes.
+     */
+    public static TreeSet<String> collectSeeTargets(TopLevelModel model) {
+        TreeSet<String> targets = new TreeSet<String>();
+        if (model != null) {
+            addSeeTargets(targets, model.getSee());
+            if (model.getModelType() == TopLevelModel.ModelType.CLASS) {
+                addSeeTargets(targets, (ClassModel) model);
+            }
+        }
+        return targets;
+    }
+
+    private static void addSeeTargets(TreeSet<String> targets, ClassModel cModel) {
+        addSeeTargets(targets, cModel.getSee());
+        for (MethodModel method : cModel.getMethods()) {
+            addSeeTargets(targets, method.getSee());
+        }
+        for (ClassModel child : cModel.getChildClasses()) {
+            addSeeTargets(targets, child);
+        }
+    }
+
+    private static void addSeeTargets(TreeSet<String> targets, String see) {
+        for (String qualifier : see.split(",")) {
+            qualifier = qualifier.trim();
+            if (qualifier.isEmpty() || Utils.isURL(qualifier) || Utils.isMarkdownURL(qualifier)) {
+                continue;
+            }
+
+            // only the first part of a qualifier is needed to find the model it links to
+            int i = qualifier.indexOf('.');
+            targets.add((i > -1 ? qualifier.substring(0, i) : Patterns.OVERLOAD_SELECTOR.matcher(qualifier).replaceFirst("")).toLowerCase());
+        }
+    }
+
+    // hashes
+    public static String hash(File file) throws IOException {
+        return hash(SourceReader.readBytes(file.toPath()));
+    }
+
+    // hashes a file's raw contents, as read by SourceReader, without changing its position
+    public static String hash(ByteBuffer contents) {
+        MessageDigest digest = newDigest();
+        digest.update(contents.duplicate());
+        return toHex(digest.digest());
+    }
+
+    public static String hash(String... values) {
+        MessageDigest digest = newDigest();
+        for (String value : values) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // field escaping, so that values never contain the tab, newline or comma delimiters
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case ',': out.append("\\c"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.equals(NULL)) {
+            return null;
+        }
+
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't': out.append('\t'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'c': out.append(','); break;
+                    default: out.append(next);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String escapeAll(Collection<String> values) {
+        ArrayList<String> escaped = new ArrayList<String>();
+        for (String value : values) {
+            escaped.add(escape(value));
+        }
+        return String.join(",", escaped);
+    }
+
+    private static TreeSet<String> unescapeAll(String values) {
+        TreeSet<String> unescaped = new TreeSet<String>();
+        if (!values.isEmpty()) {
+            for (String value : values.split(",")) {
+                unescaped.add(unescape(value));
+            }
+        }
+        return unescaped;
+    }
+
+    /**
+     * @description what the last run knew about a single source file.
+     */
+    public static class Entry {
+        private String path;
+        private long lastModified;
+        private long length;
+        private String hash;
+
+        // the top level model the file produced, if any
+        private TopLevelModel.ModelType modelType;
+        private String name;
+        private String nameLine;
+        private String scope;
+        private String groupName;
+        private String groupContentPath;
+
+        private TreeSet<String> seeTargets = new TreeSet<String>();
+        private TreeSet<String> pages = new TreeSet<String>();
+        // the model's search index entries, each formatted as a single line
+        private TreeSet<String> search = new TreeSet<String>();
+
+        private static Entry fromModel(File file, TopLevelModel model, GeneratorConfig config) throws IOException {
+            Entry entry = new Entry();
+            entry.path = file.getAbsolutePath();
+            entry.lastModified = file.lastModified();
+            entry.length = file.length();
+            entry.hash = hash(file);
+
+            if (model != null) {
+                entry.modelType = model.getModelType();
+                entry.name = model.getName();
+                entry.nameLine = model.getNameLine();
+                entry.scope = model.getScope();
+                entry.groupName = model.getGroupName();
+                entry.groupContentPath = model.getGroupContentPath();
+                entry.seeTargets = collectSeeTargets(model);
+
+                if (entry.nameLine != null && entry.nameLine.length() > 0) {
+                    entry.pages.add(entry.name);
+                    // fragments are recorded by file name, as they aren't .html pages
+                    if (model instanceof ClassModel) {
+                        entry.pages.addAll(DocGen.makeDetailsFileNames((ClassModel) model, config));
+                    }
+                }
+
+                if (entry.groupContentPath != null && !entry.groupContentPath.isEmpty()) {
+                    ClassGroup cg = new ClassGroup(entry.groupName,
+                        config.getSourceDirectories().get(0) + "/" + entry.groupContentPath);
+                    if (cg.getContentFilename() != null) {
+                        entry.pages.add(cg.getContentFilename());
+                    }
+                }
+
+                if (config.getSearch()) {
+                    for (SearchIndex.Entry searchEntry : SearchIndex.collect(model, config.isSortedAlphabetically())) {
+                        entry.search.add(searchEntry.format());
+                    }
+                }
+            }
+
+            return entry;
+        }
+
+        private static Entry parse(String line) {
+            String[] fields = line.split("\t", -1);
+            Entry entry = new Entry();
+            entry.path = unescape(fields[0]);
+            entry.lastModified = Long.parseLong(fields[1]);
+            entry.length = Long.parseLong(fields[2]);
+            entry.hash = fields[3];
+            entry.modelType = fields[4].isEmpty() ? null : TopLevelModel.ModelType.valueOf(fields[4]);
+            entry.name = unescape(fields[5]);
+            entry.nameLine = unescape(fields[6]);
+            entry.scope = unescape(fields[7]);
+            entry.groupName = unescape(fields[8]);
+            entry.groupContentPath = unescape(fields[9]);
+            entry.seeTargets = unescapeAll(fields[10]);
+            entry.pages = unescapeAll(fields[11]);
+            entry.search = unescapeAll(fields[12]);
+            return entry;
+        }
+
+        private String format() {
+            return String.join("\t",
+                escape(path),
+                String.valueOf(lastModified),
+                String.valueOf(length),
+                hash,
+                modelType == null ? "" : modelType.name(),
+                escape(name),
+                escape(nameLine),
+                escape(scope),
+                escape(groupName),
+                escape(groupContentPath),
+                escapeAll(seeTargets),
+                escapeAll(pages),
+                escapeAll(search));
+        }
+
+        /**
+         * @description whether the file is unchanged since this entry was recorded. Size
+         * and mtime are checked first; the file is only hashed when they differ, and if
+         * its contents turn out to be the same, the new mtime is recorded.
+         */
+        public boolean isUnchanged(File file) throws IOException {
+            if (file.length() == length && file.lastModified() == lastModified) {
+                return true;
+            }
+
+            if (file.length() == length && hash(file).equals(hash)) {
+                lastModified = file.lastModified();
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * @description whether the model parsed from this entry's file would still produce
+         * the same menu item (and class group) that this entry recorded.
+         */
+        public boolean hasSameMenuEntry(TopLevelModel model) {
+            if (model == null) {
+                return modelType == null;
+            }
+
+            return model.getModelType() == modelType
+                && model.getName().equals(name)
+                && model.getScope().equals(scope)
+                && String.valueOf(model.getGroupName()).equals(String.valueOf(groupName))
+                && String.valueOf(model.getGroupContentPath()).equals(String.valueOf(groupContentPath))
+                && (model.getNameLine() == null || model.getNameLine().isEmpty())
+                    == (nameLine == null || nameLine.isEmpty());
+        }
+
+        // a model standing in for this entry's unchanged file, or null if it produced none
+        public TopLevelModel toModel() {
+            return modelType == null ? null : new StandInModel(this);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public TreeSet<String> getSeeTargets() {
+            return seeTargets;
+        }
+
+        public TreeSet<String> getPages() {
+            return pages;
+        }
+    }
+
+    /**
+     * @description stands in for the model of an unchanged file. It carries only what is
+     * needed to build the menu and class groups; its page is never re-rendered, and it is
+     * never the target of an @see link on a page that is.
+     */
+    private static class StandInModel extends TopLevelModel {
+        private Entry entry;
+
+        private StandInModel(Entry entry) {
+            super(entry.modelType);
+            this.entry = entry;
+        }
+
+        public String getName() {
+            return entry.name;
+        }
+
+        public String getNameLine() {
+            return entry.nameLine;
+        }
+
+        public String getScope() {
+            return entry.scope == null ? "" : entry.scope;
+        }
+
+        public String getGroupName() {
+            return entry.groupName;
+        }
+
+        public String getGroupContentPath() {
+            return entry.groupContentPath;
+        }
+    }
+}
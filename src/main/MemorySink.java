@@ -0,0 +1,63 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @description Keeps each generated file in memory, for embedding ApexDoc2, e.g. to serve
+ * or post-process the documentation without touching the disk. A file replaces any file
+ * with the same name written before it, so one sink may collect several generations.
+ */
+public class MemorySink implements OutputSink {
+    private final ConcurrentHashMap<String, byte[]> files = new ConcurrentHashMap<String, byte[]>();
+
+    public OutputStream open(String fileName) {
+        return new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                files.put(fileName, toByteArray());
+            }
+        };
+    }
+
+    public void discard(String fileName, OutputStream stream) {
+        // a file is only kept once its stream is closed
+    }
+
+    public boolean delete(String fileName) {
+        return files.remove(fileName) != null;
+    }
+
+    // files in memory have no file on disk
+    public File getFile(String fileName) {
+        return null;
+    }
+
+    public void close() {
+        // files stay readable once writing is finished
+    }
+
+    public void abort() {
+        // the files written are complete, and stay readable
+    }
+
+    // a file's contents, or null if no file of that name was written
+    public byte[] get(String fileName) {
+        return files.get(fileName);
+    }
+
+    // a file's contents decoded as UTF-8, as every page is, or null if no file of that name was written
+    public String getText(String fileName) {
+        byte[] contents = files.get(fileName);
+        return contents != null ? new String(contents, StandardCharsets.UTF_8) : null;
+    }
+
+    // every file written, by name
+    public TreeMap<String, byte[]> getFiles() {
+        return new TreeMap<String, byte[]>(files);
+    }
+}
@@ -0,0 +1,186 @@
+package main;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @description Records the wall time and allocation of each phase of a run, and of each
+ * file parsed and page rendered, and writes them as a JSON report. Each measurement is
+ * timed with its own StopWatch. Allocation is the number of bytes allocated by the
+ * measuring thread, where the JVM supports reading it. Measurements may be recorded from
+ * concurrent parsers and renderers. When disabled, begin returns null and nothing is
+ * recorded, so instrumented code costs next to nothing.
+ */
+public class Metrics {
+    // the phases of a run, in the order they are reported
+    public static final String DISCOVERY = "discovery";
+    public static final String PARSE = "parse";
+    public static final String GROUPS = "groups";
+    public static final String SYMBOLS = "symbols";
+    public static final String MENU = "menu";
+    public static final String SEARCH = "search";
+    public static final String RENDER = "render";
+    public static final String WRITE = "write";
+    public static final String COPY = "copy";
+    public static final String COMPRESS = "compress";
+
+    private static final int SLOWEST = 10;
+
+    private final boolean enabled;
+    private final LinkedHashMap<String, Measurement> phases = new LinkedHashMap<String, Measurement>();
+    private final ArrayList<Measurement> files = new ArrayList<Measurement>();
+    private final ArrayList<Measurement> pages = new ArrayList<Measurement>();
+    private final com.sun.management.ThreadMXBean threads;
+
+    // a measurement in progress
+    public static class Sample {
+        private final StopWatch watch = StopWatch.createStarted();
+        private final long allocatedBytes;
+
+        private Sample(long allocatedBytes) {
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    private static class Measurement {
+        private final String name;
+        private int count;
+        private long nanos;
+        private long allocatedBytes;
+
+        private Measurement(String name) {
+            this.name = name;
+        }
+
+        private void add(long nanos, long allocatedBytes) {
+            this.count++;
+            this.nanos += nanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+    }
+
+    public Metrics(boolean enabled) {
+        this.enabled = enabled;
+        for (String phase : new String[] { DISCOVERY, PARSE, GROUPS, SYMBOLS, MENU, SEARCH, RENDER, WRITE, COPY, COMPRESS }) {
+            phases.put(phase, new Measurement(phase));
+        }
+
+        java.lang.management.ThreadMXBean bean = enabled ? ManagementFactory.getThreadMXBean() : null;
+        if (bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+            this.threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.threads = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // starts measuring on the current thread, or returns null when disabled
+    public Sample begin() {
+        return enabled ? new Sample(allocatedBytes()) : null;
+    }
+
+    /**
+     * @description records a measurement of a phase, started on this thread by begin.
+     * @param phase the phase to add the measurement to
+     * @param sample the value begin returned; when null, nothing is recorded
+     */
+    public void end(String phase, Sample sample) {
+        end(phase, null, sample);
+    }
+
+    /**
+     * @description records a measurement of a phase, and of the file or page it was for.
+     * @param phase the phase to add the measurement to
+     * @param item the name of the file parsed or page rendered, or null
+     * @param sample the value begin returned; when null, nothing is recorded
+     */
+    public void end(String phase, String item, Sample sample) {
+        if (sample == null) {
+            return;
+        }
+
+        sample.watch.stop();
+        long nanos = sample.watch.getNanoTime();
+        long allocated = threads != null ? allocatedBytes() - sample.allocatedBytes : 0;
+
+        synchronized (this) {
+            phases.get(phase).add(nanos, allocated);
+            if (item != null) {
+                Measurement measurement = new Measurement(item);
+                measurement.add(nanos, allocated);
+                (phase.equals(PARSE) ? files : pages).add(measurement);
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        return threads != null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * @description writes the report as JSON. Phase times are the sum of their measurements,
+     * so phases which run on several threads may add up to more than the total. Pages are
+     * streamed to disk as they are rendered, so the write phase includes rendering.
+     * @param path the file to write the report to
+     * @param version the ApexDoc2 version
+     * @param totalMillis the wall time of the whole run
+     */
+    public synchronized void save(String path, String version, long totalMillis) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("{\n");
+            out.write("  \"version\": " + Utils.toJSONString(version) + ",\n");
+            out.write("  \"totalMs\": " + totalMillis + ",\n");
+            out.write("  \"files\": " + files.size() + ",\n");
+            out.write("  \"pages\": " + pages.size() + ",\n");
+            out.write("  \"allocationSupported\": " + (threads != null) + ",\n");
+            writeMeasurements(out, "phases", new ArrayList<Measurement>(phases.values()), true);
+            out.write(",\n");
+            writeMeasurements(out, "slowestFiles", slowest(files), false);
+            out.write(",\n");
+            writeMeasurements(out, "slowestPages", slowest(pages), false);
+            out.write("\n}\n");
+        }
+    }
+
+    private static List<Measurement> slowest(ArrayList<Measurement> measurements) {
+        ArrayList<Measurement> sorted = new ArrayList<Measurement>(measurements);
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        return sorted.subList(0, Math.min(SLOWEST, sorted.size()));
+    }
+
+    private static void writeMeasurements(Writer out, String key, List<Measurement> measurements,
+            boolean withCount) throws IOException {
+        out.write("  " + Utils.toJSONString(key) + ": [");
+        for (int i = 0; i < measurements.size(); i++) {
+            Measurement measurement = measurements.get(i);
+            out.write(i == 0 ? "\n" : ",\n");
+            out.write("    { \"name\": " + Utils.toJSONString(measurement.name));
+            if (withCount) {
+                out.write(", \"count\": " + measurement.count);
+            }
+            out.write(", \"ms\": " + String.format(Locale.ROOT, "%.3f", measurement.nanos / 1e6));
+            out.write(", \"allocatedBytes\": " + measurement.allocatedBytes + " }");
+        }
+        out.write(measurements.isEmpty() ? "]" : "\n  ]");
+    }
+}
@@ -0,0 +1,187 @@
+package main;
+
+import main.models.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @description A persistent cache of parsed models, keyed by the hash of the source file
+ * they were parsed from, so that unchanged files are loaded rather than re-parsed. The
+ * cache is a single binary file in the target directory. Its header records the ApexDoc2
+ * version and everything else parsing depends on; if any of that differs, the whole cache
+ * is discarded. Lookups and additions are thread safe, so the cache may be shared by
+ * concurrent parsers.
+ */
+public class ModelCache {
+    public static final String FILE_NAME = "apexdoc2.cache";
+    // the version of what parsing produces, part of every fingerprint. Bump it whenever a
+    // change to the parser changes the models a source file parses to, so models cached,
+    // and pages rendered, by an earlier build are discarded rather than reused.
+    // 2: braces on continuation lines, and in strings and comments, nest inner classes correctly
+    // 3: sources are decoded as UTF-8, or UTF-16 by their byte order mark, which is skipped
+    // 4: a top level class outside the documented scopes parses to nothing
+    public static final int PARSER_VERSION = 4;
+    private static final int MAGIC = 0x41443243; // "AD2C"
+
+    private static final byte NONE = 0;
+    private static final byte CLASS = 1;
+    private static final byte ENUM = 2;
+
+    private String fingerprint;
+    private ConcurrentHashMap<String, byte[]> entries = new ConcurrentHashMap<String, byte[]>();
+    private Set<String> used = ConcurrentHashMap.newKeySet();
+    private AtomicInteger hits = new AtomicInteger();
+
+    private ModelCache(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @description loads the cache from the target directory. If there isn't one, or it
+     * was written by another version or with a different fingerprint, an empty cache is
+     * returned instead.
+     * @param targetDirectory the directory documentation is generated to
+     * @param fingerprint hash of the ApexDoc2 and parser versions and the options parsing depends on
+     */
+    public static ModelCache load(String targetDirectory, String fingerprint) {
+        ModelCache cache = new ModelCache(fingerprint);
+        File file = new File(targetDirectory, FILE_NAME);
+        if (!file.exists()) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(fingerprint)) {
+                return cache;
+            }
+
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String hash = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                cache.entries.put(hash, bytes);
+            }
+        } catch (IOException ex) {
+            Utils.log("\nWARNING: could not read " + file.getPath() + ", all files will be parsed.\n");
+            cache.entries.clear();
+        }
+
+        return cache;
+    }
+
+    /**
+     * @description writes the cache to the target directory. Only entries used during
+     * this run are kept, so models of deleted or changed files don't accumulate.
+     */
+    public void save(String targetDirectory) throws IOException {
+        (new File(targetDirectory)).mkdirs();
+        File file = new File(targetDirectory, FILE_NAME);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(fingerprint);
+
+            int size = 0;
+            for (String hash : used) {
+                if (entries.containsKey(hash)) size++;
+            }
+
+            out.writeInt(size);
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                if (used.contains(entry.getKey())) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * @description returns the model for a file, loading it from the cache when the file's
+     * contents are unchanged, or parsing it (and caching the result) when they aren't.
+     * @param config the config the cache was loaded for
+     */
+    public TopLevelModel parse(File file, GeneratorConfig config) {
+        // the file is read once, both to hash it and, if it's changed, to parse it
+        ByteBuffer contents;
+        String hash;
+        try {
+            contents = SourceReader.readBytes(file.toPath());
+            hash = Manifest.hash(contents);
+        } catch (IOException ex) {
+            Utils.log(ex);
+            return null;
+        }
+
+        used.add(hash);
+        byte[] bytes = entries.get(hash);
+        if (bytes != null) {
+            try {
+                TopLevelModel model = read(bytes);
+                hits.incrementAndGet();
+                return model;
+            } catch (IOException ex) {
+                // corrupt entry, fall through and re-parse
+                entries.remove(hash);
+            }
+        }
+
+        TopLevelModel model;
+        try {
+            model = ApexDoc.parseSource(SourceReader.decode(contents), config);
+        } catch (IOException ex) {
+            Utils.log(ex);
+            return null;
+        }
+
+        try {
+            entries.put(hash, write(model));
+        } catch (IOException ex) {
+            Utils.log(ex);
+        }
+
+        return model;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    private static TopLevelModel read(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte kind = in.readByte();
+        if (kind == CLASS) {
+            return new ClassModel(null, in);
+        } else if (kind == ENUM) {
+            return new EnumModel(in);
+        }
+        return null;
+    }
+
+    private static byte[] write(TopLevelModel model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (model == null) {
+            out.writeByte(NONE);
+        } else {
+            out.writeByte(model.getModelType() == TopLevelModel.ModelType.CLASS ? CLASS : ENUM);
+            model.write(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
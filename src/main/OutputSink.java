@@ -0,0 +1,54 @@
+package main;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @description Where generated files are written: a directory, a single archive, or memory.
+ * FileManager writes every page, menu.js and the static resources through a sink, so a
+ * generation doesn't need to know where its output ends up. Files are written concurrently
+ * when more than one thread is used, so implementations must be thread safe, but each
+ * thread only has one file open at a time.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * @description opens a file for writing. The file is complete once the stream is closed.
+     * @param fileName the file's name, relative to the root of the output
+     */
+    OutputStream open(String fileName) throws IOException;
+
+    /**
+     * @description gives up on a file which couldn't be finished, e.g. because rendering it
+     * failed, instead of closing its stream. Nothing written to the stream is kept.
+     * @param fileName the file's name, as it was opened
+     * @param stream the stream open returned for it
+     */
+    void discard(String fileName, OutputStream stream) throws IOException;
+
+    /**
+     * @description removes a file written by an earlier generation, e.g. the page of a class
+     * which has since been deleted.
+     * @return whether there was a file to remove
+     */
+    boolean delete(String fileName) throws IOException;
+
+    /**
+     * @description the file on disk a file was written to, for post-processing such as
+     * compression.
+     * @return the file, or null if the sink doesn't write each file to a file of its own
+     */
+    File getFile(String fileName);
+
+    // finishes writing, e.g. an archive's index. Nothing may be written afterwards.
+    void close() throws IOException;
+
+    /**
+     * @description gives up on the output after a generation failed, instead of closing it,
+     * e.g. by deleting an unfinished archive rather than completing it. Nothing may be
+     * written afterwards.
+     */
+    void abort() throws IOException;
+}
@@ -0,0 +1,39 @@
+package main;
+
+import java.util.regex.Pattern;
+
+/**
+ * @description Registry of the regular expressions used while parsing and rendering.
+ * Each pattern is compiled once, when this class is loaded, rather than on every call
+ * through String.matches, replaceAll, replaceFirst or split, all of which compile their
+ * pattern again each time they are called. Patterns are immutable and thread safe, so
+ * they may be shared by concurrent parsers and renderers.
+ */
+public final class Patterns {
+    private static final String URL_REGEXP = "(https?)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
+
+    // an absolute http or https URL, e.g. in an @see token
+    public static final Pattern URL = Pattern.compile("^" + URL_REGEXP);
+
+    // a markdown style link: [name](url)
+    public static final Pattern MARKDOWN_URL = Pattern.compile("^\\[.*\\]\\(.*\\)$");
+
+    // an annotation and its optional parameters, e.g. @isTest(SeeAllData=true)
+    public static final Pattern ANNOTATION = Pattern.compile("@\\w+\\s*(\\([\\w=.*''/\\s]+\\))?");
+
+    // a <br>, <br/> or <br /> tag, after its angle brackets have been escaped
+    public static final Pattern ESCAPED_BR_TAG = Pattern.compile("&#60;br\\s?/?&#62;");
+
+    // the one or two spaces between two words
+    public static final Pattern WORD_SEPARATOR = Pattern.compile("\\b\\s{1,2}\\b");
+
+    public static final Pattern WHITESPACE = Pattern.compile("\\s");
+
+    // the overload selector suffix of an @see qualifier, e.g. the [3] in MyClass.myMethod[3]
+    public static final Pattern OVERLOAD_SELECTOR = Pattern.compile("\\[\\d+\\]$");
+
+    // the name of an .htm, .html, .shtm or .shtml file
+    public static final Pattern HTML_FILE = Pattern.compile(".*\\.s?html?$");
+
+    private Patterns() {}
+}
@@ -0,0 +1,207 @@
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @description Serves the documentation over HTTP, for previewing it without writing it
+ * to disk. Models are parsed once, up front, but pages are only rendered when they are
+ * first requested. Rendered pages, and the static resources, are kept in an LRU cache
+ * bounded by size in bytes. Every response carries an ETag computed from its content, so
+ * a browser revalidating a page it already has is answered with a 304. Generated scripts,
+ * i.e. menu.js and the search index, are built up front with the models.
+ */
+public class PreviewServer {
+    public static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private final TreeMap<String, FileManager.Page> pages;
+    private final TreeMap<String, String> scripts;
+    private final PageCache cache;
+    private final HttpServer server;
+    private final ExecutorService pool;
+
+    // a rendered page or resource, and the ETag which identifies its content
+    private static class Response {
+        private final byte[] body;
+        private final String contentType;
+        private final String eTag;
+
+        private Response(byte[] body, String contentType) {
+            this.body = body;
+            this.contentType = contentType;
+            this.eTag = "\"" + Manifest.hash(ByteBuffer.wrap(body)) + "\"";
+        }
+    }
+
+    // least recently used responses, evicted once their total size exceeds the limit
+    private static class PageCache {
+        private final LinkedHashMap<String, Response> responses = new LinkedHashMap<String, Response>(16, 0.75f, true);
+        private final long maxBytes;
+        private long bytes = 0;
+
+        private PageCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized Response get(String fileName) {
+            return responses.get(fileName);
+        }
+
+        private synchronized void put(String fileName, Response response) {
+            Response replaced = responses.put(fileName, response);
+            bytes += response.body.length - (replaced != null ? replaced.body.length : 0);
+
+            // always keep the newest response, however large
+            Iterator<Map.Entry<String, Response>> eldest = responses.entrySet().iterator();
+            while (bytes > maxBytes && responses.size() > 1) {
+                bytes -= eldest.next().getValue().body.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * @param port the port to listen on. Only the loopback interface is listened on, so the
+     * preview isn't exposed to the network.
+     * @param pages map of file name to page, as FileManager.createPages returns
+     * @param scripts map of file name to script, as FileManager.createScripts returns
+     * @param cacheBytes the most bytes of rendered pages and resources to keep
+     * @param threads the number of requests to render concurrently
+     */
+    public PreviewServer(int port, TreeMap<String, FileManager.Page> pages, TreeMap<String, String> scripts,
+            long cacheBytes, int threads) throws IOException {
+
+        this.pages = pages;
+        this.scripts = scripts;
+        this.cache = new PageCache(cacheBytes);
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(pool);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // the decoded path; unlike form decoding, this leaves a '+' as it is
+            String fileName = exchange.getRequestURI().getPath().substring(1);
+            if (fileName.isEmpty()) {
+                fileName = "index.html";
+            }
+
+            Response response = getResponse(fileName);
+            if (response == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            // pages never change while the server runs, but they may be evicted and
+            // re-rendered, so have the browser revalidate instead of caching blindly
+            exchange.getResponseHeaders().set("ETag", response.eTag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (response.eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(response.body.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, response.body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body);
+            }
+        } catch (Exception ex) {
+            Utils.log(ex);
+            if (exchange.getResponseCode() == -1) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // the cached response for a file, rendering or loading it if it isn't cached
+    private Response getResponse(String fileName) throws IOException {
+        Response response = cache.get(fileName);
+        if (response != null) {
+            return response;
+        }
+
+        if (pages.containsKey(fileName)) {
+            response = new Response(HTMLBuffer.render(pages.get(fileName)::write), getContentType(fileName));
+        } else if (scripts.containsKey(fileName)) {
+            response = new Response(scripts.get(fileName).getBytes(StandardCharsets.UTF_8), getContentType(fileName));
+        } else if (FileManager.RESOURCES.contains(fileName)) {
+            response = new Response(readResource(fileName), getContentType(fileName));
+        } else {
+            return null;
+        }
+
+        cache.put(fileName, response);
+        return response;
+    }
+
+    private static byte[] readResource(String fileName) throws IOException {
+        try (InputStream in = FileManager.class.getResourceAsStream("resources/" + fileName)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, bytesRead);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static String getContentType(String fileName) {
+        if (fileName.endsWith(".html")) {
+            return "text/html; charset=UTF-8";
+        } else if (fileName.endsWith(".css")) {
+            return "text/css; charset=UTF-8";
+        } else if (fileName.endsWith(".js")) {
+            return "application/javascript; charset=UTF-8";
+        } else if (fileName.endsWith(".png")) {
+            return "image/png";
+        }
+        return "application/octet-stream";
+    }
+}
@@ -0,0 +1,514 @@
+package main;
+
+import main.models.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @description A prebuilt search index of every documented class, interface, enum, method and
+ * property, by name and by the words of its description. The index is written with the pages
+ * as small scripts, which index.js loads as they're needed, so searching never fetches more
+ * than a shard or two however large the org is.
+ *
+ * Terms are sharded by prefix: a shard holds every term starting with its key, which is a
+ * term's first two characters. A shard with too many entries, e.g. every getter under "ge",
+ * is split by the next character, and so on, and keeps only the terms which are exactly its
+ * key, plus the best matches for its key as a whole. A query word then loads the one shard
+ * with the longest key it starts with. search/shard-keys.js lists the shards, which are
+ * split, and the words too common to index, which queries ignore.
+ */
+public class SearchIndex {
+    public static final String DIRECTORY = "search/";
+    // named so that it can't be mistaken for a shard, whose keys never contain '-'
+    public static final String KEYS_SCRIPT = DIRECTORY + "shard-keys.js";
+    private static final int KEY_LENGTH = 2;
+    private static final int MAX_KEY_LENGTH = 8;
+    // the most entries a shard holds before it's split
+    private static final int MAX_SHARD_ENTRIES = 500;
+    // the most results index.js shows, and so the most a split shard keeps for its key
+    private static final int MAX_RESULTS = 50;
+    private static final int SNIPPET_LENGTH = 120;
+    private static final int MIN_WORD_LENGTH = 3;
+    // a description word in more than one in this many entries is too common to index
+    private static final int COMMON_WORD_SHARE = 20;
+
+    private static final HashSet<String> STOP_WORDS = new HashSet<String>(Arrays.asList(
+        "the", "and", "for", "with", "this", "that", "are", "from", "into", "its", "was", "will", "not",
+        "all", "any", "can", "has", "have", "which", "when", "then", "than", "but", "use", "used", "using"));
+
+    private final ArrayList<Entry> entries = new ArrayList<Entry>();
+    private final boolean sortAlphabetically;
+
+    /**
+     * @description something a search can find: a class, interface, enum, method or property,
+     * with the terms which find it.
+     */
+    public static class Entry {
+        private final String name;
+        private final String kind;
+        private final String scope;
+        // the class a member or inner type belongs to, or "" for a top level type
+        private final String owner;
+        private final String href;
+        private final String snippet;
+        private final String[] nameTerms;
+        private final String[] descriptionTerms;
+
+        private Entry(String name, String kind, String scope, String owner, String href, String description) {
+            this.name = name;
+            this.kind = kind;
+            this.scope = scope;
+            this.owner = owner;
+            this.href = href;
+            String text = makePlainText(description);
+            this.snippet = makeSnippet(text);
+            this.nameTerms = makeNameTerms(name);
+            this.descriptionTerms = makeDescriptionTerms(text, nameTerms);
+        }
+
+        private Entry(String[] fields) {
+            this.name = fields[0];
+            this.kind = fields[1];
+            this.scope = fields[2];
+            this.owner = fields[3];
+            this.href = fields[4];
+            this.snippet = fields[5];
+            this.nameTerms = split(fields[6]);
+            this.descriptionTerms = split(fields[7]);
+        }
+
+        // a single line, tab delimited, for the manifest to record
+        public String format() {
+            return String.join("\t", name, kind, scope, owner, href, snippet,
+                String.join(" ", nameTerms), String.join(" ", descriptionTerms));
+        }
+
+        public static Entry parse(String line) {
+            return new Entry(line.split("\t", -1));
+        }
+
+        private static String[] split(String terms) {
+            return terms.isEmpty() ? new String[0] : terms.split(" ");
+        }
+
+        private String toJSON() {
+            return "[" + Utils.toJSONString(name) + "," + Utils.toJSONString(kind) + "," +
+                Utils.toJSONString(scope) + "," + Utils.toJSONString(owner) + "," +
+                Utils.toJSONString(href) + "," + Utils.toJSONString(snippet) + "]";
+        }
+    }
+
+    // the entries a term finds, by its name or by its description
+    private static class Postings {
+        private int[] entries = new int[4];
+        private int size = 0;
+
+        private void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+
+    // @param sortAlphabetically whether pages list methods alphabetically, which decides overloads' anchors
+    public SearchIndex(boolean sortAlphabetically) {
+        this.sortAlphabetically = sortAlphabetically;
+    }
+
+    /**
+     * @description adds a model, its members and its inner classes. A model standing in for an
+     * unchanged file in an incremental build adds the entries the manifest recorded for it.
+     */
+    public void add(TopLevelModel model) {
+        if (Manifest.isStandIn(model)) {
+            entries.addAll(Manifest.getSearchEntries(model));
+        } else {
+            entries.addAll(collect(model, sortAlphabetically));
+        }
+    }
+
+    /**
+     * @description the entries for a model, its members and its inner classes, linking to
+     * where each is documented on the model's page.
+     * @return the entries, or none if the model has no page
+     */
+    public static ArrayList<Entry> collect(TopLevelModel model, boolean sortAlphabetically) {
+        ArrayList<Entry> collected = new ArrayList<Entry>();
+        if (model.getNameLine() == null || model.getNameLine().isEmpty()) {
+            return collected;
+        }
+
+        String page = model.getName() + ".html";
+        if (model.getModelType() == TopLevelModel.ModelType.ENUM) {
+            collected.add(new Entry(model.getName(), "enum", model.getScope(), "",
+                page + "#" + model.getName(), model.getDescription()));
+        } else {
+            collectClass(collected, page, (ClassModel) model, "", sortAlphabetically);
+        }
+        return collected;
+    }
+
+    private static void collectClass(ArrayList<Entry> collected, String page, ClassModel cModel, String owner,
+            boolean sortAlphabetically) {
+
+        String className = cModel.getName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        String classHref = page + "#" + className;
+        collected.add(new Entry(simpleName, cModel.getIsInterface() ? "interface" : "class", cModel.getScope(),
+            owner, classHref, cModel.getDescription()));
+
+        for (PropertyModel prop : cModel.getProperties()) {
+            collected.add(new Entry(prop.getPropertyName(), "property", prop.getScope(), className, classHref,
+                prop.getDescription()));
+        }
+
+        for (EnumModel eModel : cModel.getEnums()) {
+            collected.add(new Entry(eModel.getName(), "enum", eModel.getScope(), className, classHref,
+                eModel.getDescription()));
+        }
+
+        // methods are linked to by the same ids their page gives them
+        List<MethodModel> methods = sortAlphabetically ? cModel.getMethodsSorted() : cModel.getMethods();
+        String[] methodIds = DocGen.makeMethodIds(cModel, methods);
+        for (int i = 0; i < methods.size(); i++) {
+            MethodModel method = methods.get(i);
+            String methodName = method.getMethodName();
+            collected.add(new Entry(methodName, methodName.equalsIgnoreCase(simpleName) ? "constructor" : "method",
+                method.getScope(), className, page + "#" + methodIds[i], method.getDescription()));
+        }
+
+        for (ClassModel child : cModel.getChildClasses()) {
+            collectClass(collected, page, child, className, sortAlphabetically);
+        }
+    }
+
+    /**
+     * @description builds the shards, and the list of them.
+     * @return map of file name, relative to the target directory, to script
+     */
+    public TreeMap<String, String> makeScripts() {
+        // sort so the same models always produce the same scripts
+        entries.sort(Comparator.comparing((Entry entry) -> entry.href).thenComparing(entry -> entry.name)
+            .thenComparing(entry -> entry.kind));
+
+        TreeMap<String, Postings> names = new TreeMap<String, Postings>();
+        TreeMap<String, Postings> descriptions = new TreeMap<String, Postings>();
+        for (int i = 0; i < entries.size(); i++) {
+            for (String term : entries.get(i).nameTerms) {
+                names.computeIfAbsent(term, key -> new Postings()).add(i);
+            }
+            for (String term : entries.get(i).descriptionTerms) {
+                descriptions.computeIfAbsent(term, key -> new Postings()).add(i);
+            }
+        }
+
+        // a word in a large share of all descriptions narrows no search, and would only bloat
+        // its shard. index.js ignores such words in queries, and stop words, unless they're names.
+        int common = Math.max(MAX_SHARD_ENTRIES, entries.size() / COMMON_WORD_SHARE);
+        TreeSet<String> ignored = new TreeSet<String>(STOP_WORDS);
+        for (String term : descriptions.keySet()) {
+            if (descriptions.get(term).size > common) {
+                ignored.add(term);
+            }
+        }
+        descriptions.keySet().removeAll(ignored);
+        ignored.removeAll(names.keySet());
+
+        TreeSet<String> terms = new TreeSet<String>(names.keySet());
+        terms.addAll(descriptions.keySet());
+        Shards shards = new Shards(names, descriptions);
+        for (ArrayList<String> group : groupByKey(terms, KEY_LENGTH).values()) {
+            shards.make(key(group.get(0), KEY_LENGTH), group);
+        }
+
+        StringBuilder keyScript = new StringBuilder("registerSearchKeys({");
+        String separator = "";
+        for (String key : shards.keys.keySet()) {
+            keyScript.append(separator).append(Utils.toJSONString(key)).append(':').append(shards.keys.get(key) ? 1 : 0);
+            separator = ",";
+        }
+        keyScript.append("},[");
+        separator = "";
+        for (String word : ignored) {
+            keyScript.append(separator).append(Utils.toJSONString(word));
+            separator = ",";
+        }
+        shards.scripts.put(KEYS_SCRIPT, keyScript.append("]);\n").toString());
+        return shards.scripts;
+    }
+
+    // builds the shards of a sorted index, reusing per entry arrays from shard to shard
+    private class Shards {
+        private final TreeMap<String, Postings> names;
+        private final TreeMap<String, Postings> descriptions;
+        private final TreeMap<String, String> scripts = new TreeMap<String, String>();
+        // each shard's key, and whether it's split
+        private final TreeMap<String, Boolean> keys = new TreeMap<String, Boolean>();
+        // each entry as JSON, built the first time a shard holds it
+        private final String[] json = new String[entries.size()];
+        // marks the entries already seen in the current pass, and their best score
+        private final int[] marks = new int[entries.size()];
+        private final int[] scores = new int[entries.size()];
+        private int pass = 0;
+
+        private Shards(TreeMap<String, Postings> names, TreeMap<String, Postings> descriptions) {
+            this.names = names;
+            this.descriptions = descriptions;
+        }
+
+        // writes the shard for a key, splitting it by the next character if it's too large
+        private void make(String key, List<String> shardTerms) {
+            pass++;
+            int count = 0;
+            for (String term : shardTerms) {
+                count += mark(names.get(term)) + mark(descriptions.get(term));
+            }
+
+            boolean isSplit = count > MAX_SHARD_ENTRIES && key.length() < MAX_KEY_LENGTH;
+            ArrayList<String> kept = new ArrayList<String>();
+            ArrayList<int[]> top = null;
+            if (isSplit) {
+                // keep the terms which are exactly this key, and split the rest
+                ArrayList<String> longer = new ArrayList<String>();
+                for (String term : shardTerms) {
+                    (term.length() <= key.length() ? kept : longer).add(term);
+                }
+                top = rank(key, shardTerms);
+                for (ArrayList<String> group : groupByKey(longer, key.length() + 1).values()) {
+                    make(key(group.get(0), key.length() + 1), group);
+                }
+            } else {
+                kept.addAll(shardTerms);
+            }
+
+            // number the shard's entries in the order they're first needed
+            LinkedHashMap<Integer, Integer> numbers = new LinkedHashMap<Integer, Integer>();
+            StringBuilder nameMap = new StringBuilder("{");
+            StringBuilder descriptionMap = new StringBuilder("{");
+            for (String term : kept) {
+                appendTerm(nameMap, term, names.get(term), numbers);
+                appendTerm(descriptionMap, term, descriptions.get(term), numbers);
+            }
+
+            StringBuilder topList = new StringBuilder();
+            if (top != null) {
+                for (int[] match : top) {
+                    topList.append(topList.length() > 0 ? ",[" : "[").append(number(numbers, match[0]))
+                        .append(',').append(match[1]).append(']');
+                }
+            }
+
+            StringBuilder script = new StringBuilder("registerSearchShard(").append(Utils.toJSONString(key)).append(",[");
+            String separator = "";
+            for (int entry : numbers.keySet()) {
+                if (json[entry] == null) {
+                    json[entry] = entries.get(entry).toJSON();
+                }
+                script.append(separator).append(json[entry]);
+                separator = ",";
+            }
+            script.append("],").append(nameMap).append("},").append(descriptionMap).append("},");
+            script.append(top != null ? "[" + topList + "]" : "null").append(");\n");
+
+            scripts.put(DIRECTORY + key + ".js", script.toString());
+            keys.put(key, isSplit);
+        }
+
+        // marks the entries a term finds, returning how many weren't marked already
+        private int mark(Postings postings) {
+            int count = 0;
+            for (int i = 0; postings != null && i < postings.size; i++) {
+                if (marks[postings.entries[i]] != pass) {
+                    marks[postings.entries[i]] = pass;
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @description the best matches for a query of exactly a split shard's key, ranked as
+         * index.js ranks results: a name which is the query, then names starting with it, then
+         * descriptions with the word, then descriptions with words starting with it. Shorter
+         * names rank first among equals.
+         * @return each match's entry and score, best first
+         */
+        private ArrayList<int[]> rank(String key, List<String> shardTerms) {
+            pass++;
+            ArrayList<Integer> matches = new ArrayList<Integer>();
+            for (String term : shardTerms) {
+                int exact = term.equals(key) ? 0 : 1;
+                score(names.get(term), exact, matches);
+                score(descriptions.get(term), 2 + exact, matches);
+            }
+
+            matches.sort(Comparator.comparing((Integer entry) -> scores[entry])
+                .thenComparing(entry -> entries.get(entry).name.length())
+                .thenComparing(entry -> entries.get(entry).name.toLowerCase(Locale.ROOT))
+                .thenComparing(entry -> entry));
+            ArrayList<int[]> top = new ArrayList<int[]>();
+            for (int entry : matches.subList(0, Math.min(MAX_RESULTS, matches.size()))) {
+                top.add(new int[] { entry, scores[entry] });
+            }
+            return top;
+        }
+
+        private void score(Postings postings, int score, ArrayList<Integer> matches) {
+            for (int i = 0; postings != null && i < postings.size; i++) {
+                int entry = postings.entries[i];
+                if (marks[entry] != pass) {
+                    marks[entry] = pass;
+                    scores[entry] = score;
+                    matches.add(entry);
+                } else {
+                    scores[entry] = Math.min(scores[entry], score);
+                }
+            }
+        }
+    }
+
+    private static int number(LinkedHashMap<Integer, Integer> numbers, int entry) {
+        Integer number = numbers.get(entry);
+        if (number == null) {
+            number = numbers.size();
+            numbers.put(entry, number);
+        }
+        return number;
+    }
+
+    private static void appendTerm(StringBuilder map, String term, Postings postings,
+            LinkedHashMap<Integer, Integer> numbers) {
+
+        if (postings != null) {
+            map.append(map.length() > 1 ? "," : "").append(Utils.toJSONString(term)).append(":[");
+            for (int i = 0; i < postings.size; i++) {
+                map.append(i > 0 ? "," : "").append(number(numbers, postings.entries[i]));
+            }
+            map.append(']');
+        }
+    }
+
+    // groups terms by their key of the given length, in order
+    private static TreeMap<String, ArrayList<String>> groupByKey(Iterable<String> terms, int length) {
+        TreeMap<String, ArrayList<String>> groups = new TreeMap<String, ArrayList<String>>();
+        for (String term : terms) {
+            groups.computeIfAbsent(key(term, length), key -> new ArrayList<String>()).add(term);
+        }
+        return groups;
+    }
+
+    /**
+     * @description a term's shard key: its first characters, with any character other than
+     * a-z and 0-9 replaced by '_' so every key is a safe file name. index.js derives keys
+     * from query words the same way.
+     */
+    private static String key(String term, int length) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < Math.min(length, term.length()); i++) {
+            char c = term.charAt(i);
+            key.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : '_');
+        }
+        return key.toString();
+    }
+
+    // a name, and each word of it, e.g. getAccountsById, get, accounts, by and id
+    private static String[] makeNameTerms(String name) {
+        TreeSet<String> terms = new TreeSet<String>();
+        addTerm(terms, name);
+
+        // a word starts at an upper case letter following a lower case one, or at the
+        // last of a run of upper case letters, e.g. getHTTPResponse is get, http and response
+        StringBuilder part = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean startsWord = i > 0 && Character.isUpperCase(c) && (!Character.isUpperCase(name.charAt(i - 1))
+                || i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1)));
+            if (c == '_' || startsWord) {
+                addTerm(terms, part);
+                part.setLength(0);
+            }
+            if (c != '_') {
+                part.append(c);
+            }
+        }
+        addTerm(terms, part);
+        return terms.toArray(new String[terms.size()]);
+    }
+
+    private static void addTerm(TreeSet<String> terms, CharSequence term) {
+        // index.js only searches for words of at least a key's length
+        if (term.length() >= KEY_LENGTH) {
+            terms.add(term.toString().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * @description the words of a description, other than short and common words, and
+     * those of the name. A word is a run of letters, digits and underscores, as index.js
+     * splits queries.
+     */
+    private static String[] makeDescriptionTerms(String text, String[] nameTerms) {
+        TreeSet<String> terms = new TreeSet<String>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean isWordChar = Character.isLetterOrDigit(c) || c == '_';
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                if (word.length() >= MIN_WORD_LENGTH && !STOP_WORDS.contains(word)) {
+                    terms.add(word);
+                }
+                start = -1;
+            }
+        }
+
+        for (String term : nameTerms) {
+            terms.remove(term);
+        }
+        return terms.toArray(new String[terms.size()]);
+    }
+
+    // a description as plain text, without tags or backticks, and with whitespace collapsed
+    private static String makePlainText(String description) {
+        StringBuilder text = new StringBuilder(description.length());
+        boolean isSpace = false;
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            int tagEnd = c == '<' ? description.indexOf('>', i) : -1;
+            if (tagEnd >= 0) {
+                i = tagEnd;
+                isSpace = true;
+            } else if (Character.isWhitespace(c)) {
+                isSpace = true;
+            } else if (c != '`') {
+                if (isSpace && text.length() > 0) {
+                    text.append(' ');
+                }
+                isSpace = false;
+                text.append(c);
+            }
+        }
+        return text.toString();
+    }
+
+    // the start of a description, as shown with each result
+    private static String makeSnippet(String text) {
+        return text.length() > SNIPPET_LENGTH ? text.substring(0, SNIPPET_LENGTH).trim() + "\u2026" : text;
+    }
+
+    // every entry added, in the order makeScripts numbers them once it has run
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+}
@@ -0,0 +1,196 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * @description Finds the Apex class files to document by walking each source directory
+ * recursively, so nested layouts like SFDX's force-app/main/default/classes are found.
+ * Include and exclude patterns are globs, compiled once. A pattern containing a '/' is
+ * matched against a file's path relative to its source directory, where ** crosses
+ * directories. Any other pattern is matched against the file's name. Several source
+ * directories are walked concurrently, and each file can be handed on, e.g. to a parser,
+ * as soon as it's found.
+ */
+public class SourceFinder {
+    private static final String APEX_EXTENSION = ".cls";
+
+    private final ArrayList<Glob> includes;
+    private final ArrayList<Glob> excludes;
+    private int threads = 1;
+    private boolean verbose = true;
+
+    // a compiled include or exclude pattern
+    private static class Glob {
+        private final PathMatcher matcher;
+        private final boolean matchesPath;
+
+        private Glob(FileSystem fileSystem, String pattern) {
+            this.matcher = fileSystem.getPathMatcher("glob:" + pattern);
+            this.matchesPath = pattern.contains("/");
+        }
+
+        private boolean matches(Path relativePath) {
+            return matcher.matches(matchesPath ? relativePath : relativePath.getFileName());
+        }
+    }
+
+    public SourceFinder(List<String> includes, List<String> excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // whether to log every file found
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    private static ArrayList<Glob> compile(List<String> patterns) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        ArrayList<Glob> globs = new ArrayList<Glob>();
+        for (String pattern : patterns) {
+            pattern = pattern.trim();
+            if (!pattern.isEmpty()) {
+                globs.add(new Glob(fileSystem, pattern));
+            }
+        }
+        return globs;
+    }
+
+    /**
+     * @description walks the source directories for files to document.
+     * @param roots the source directories to walk
+     * @param onFound called with each file as soon as it's found, possibly from several
+     * threads at once, or null. Called once per file, even if source directories overlap.
+     * @return every file found, sorted by path
+     */
+    public ArrayList<File> find(List<String> roots, Consumer<File> onFound) throws IOException {
+        ConcurrentHashMap<String, File> found = new ConcurrentHashMap<String, File>();
+
+        if (threads <= 1 || roots.size() <= 1) {
+            for (String root : roots) {
+                walk(Paths.get(root), found, onFound);
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, roots.size()));
+            try {
+                ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+                for (String root : roots) {
+                    futures.add(pool.submit(() -> {
+                        walk(Paths.get(root), found, onFound);
+                        return null;
+                    }));
+                }
+
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Source discovery was interrupted.", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw new IllegalStateException("Source discovery failed: " + ex.getCause().getMessage(), ex.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        ArrayList<File> files = new ArrayList<File>(found.values());
+        files.sort(Comparator.comparing(File::getPath));
+
+        if (verbose) {
+            Utils.log("\nProcessing files:\n");
+            files.stream().forEach(file -> Utils.log(file.getName()));
+        }
+
+        if (files.isEmpty()) {
+            Utils.log("WARNING: No files found in directory: " + String.join(", ", roots));
+        }
+
+        return files;
+    }
+
+    private void walk(Path root, ConcurrentHashMap<String, File> found, Consumer<File> onFound) throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                // skip hidden directories, e.g. .git and .sfdx, unless asked to walk one
+                Path name = directory.getFileName();
+                boolean isHidden = name != null && name.toString().startsWith(".") && !directory.equals(root);
+                return isHidden ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                Path relativePath = path.equals(root) ? path.getFileName() : root.relativize(path);
+                if (!attributes.isDirectory() && accept(relativePath)) {
+                    File file = path.toFile();
+                    // a file is only found once, even if source directories overlap
+                    if (found.putIfAbsent(path.toAbsolutePath().normalize().toString(), file) == null && onFound != null) {
+                        onFound.accept(file);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException ex) {
+                // e.g. an unreadable directory, or a symbolic link cycle. Skip it and carry on.
+                Utils.log("WARNING: Could not read " + path + ": " + ex.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // files are excluded before they are included
+    private boolean accept(Path relativePath) {
+        if (!relativePath.getFileName().toString().endsWith(APEX_EXTENSION)) {
+            return false;
+        }
+
+        for (Glob exclude : excludes) {
+            if (exclude.matches(relativePath)) {
+                return false;
+            }
+        }
+
+        if (includes.isEmpty()) {
+            return true;
+        }
+
+        for (Glob include : includes) {
+            if (include.matches(relativePath)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
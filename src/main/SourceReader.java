@@ -0,0 +1,136 @@
+package main;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @description Reads source files into reusable buffers and decodes them explicitly, so
+ * results never depend on the platform's default charset. Each file is read with a single
+ * bulk read into a byte buffer owned by the calling thread, or memory mapped if it's
+ * large, then decoded into a char buffer also owned by the calling thread. Files are
+ * decoded as UTF-8 unless they start with a UTF-16 byte order mark, and any byte order
+ * mark is skipped. Malformed input is replaced rather than rejected, as InputStreamReader
+ * does. The buffers returned are only valid until the calling thread's next read.
+ */
+public class SourceReader {
+    private static final int DEFAULT_SIZE = 64 * 1024;
+    // files larger than this are memory mapped rather than read
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final ThreadLocal<SourceReader> readers = ThreadLocal.withInitial(SourceReader::new);
+
+    private ByteBuffer bytes = ByteBuffer.allocate(DEFAULT_SIZE);
+    private CharBuffer chars = CharBuffer.allocate(DEFAULT_SIZE);
+    private final CharsetDecoder utf8 = newDecoder(StandardCharsets.UTF_8);
+    private CharsetDecoder utf16;
+
+    private SourceReader() {}
+
+    // reads and decodes a file
+    public static CharBuffer read(Path path) throws IOException {
+        return decode(readBytes(path));
+    }
+
+    /**
+     * @description reads a file's raw contents.
+     * @return a buffer positioned at the start of the file's contents and limited to their
+     * end. Only valid until the calling thread's next call to readBytes.
+     */
+    public static ByteBuffer readBytes(Path path) throws IOException {
+        return readers.get().readInto(path);
+    }
+
+    /**
+     * @description decodes a file's raw contents, skipping any byte order mark.
+     * @param source the contents, as returned by readBytes. Its position is not changed.
+     * @return a buffer positioned at the start of the decoded text and limited to its end.
+     * Only valid until the calling thread's next call to decode.
+     */
+    public static CharBuffer decode(ByteBuffer source) throws CharacterCodingException {
+        return readers.get().decodeInto(source.duplicate());
+    }
+
+    private ByteBuffer readInto(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+
+            // leave room to read the end of the file without growing the buffer
+            if (size >= bytes.capacity()) {
+                bytes = ByteBuffer.allocate((int) size + 1);
+            }
+
+            // Buffer casts keep the class runnable on Java 8, where ByteBuffer and
+            // CharBuffer don't override clear, flip and position
+            ((Buffer) bytes).clear();
+            // the size is only a hint, so read until the end of the file
+            while (channel.read(bytes) != -1) {
+                if (!bytes.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+                    ((Buffer) bytes).flip();
+                    bytes = larger.put(bytes);
+                }
+            }
+            ((Buffer) bytes).flip();
+            return bytes;
+        }
+    }
+
+    private CharBuffer decodeInto(ByteBuffer source) throws CharacterCodingException {
+        CharsetDecoder decoder = utf8;
+        if (startsWith(source, 0xEF, 0xBB, 0xBF)) {
+            ((Buffer) source).position(source.position() + 3);
+        } else if (startsWith(source, 0xFE, 0xFF) || startsWith(source, 0xFF, 0xFE)) {
+            // the UTF-16 decoder reads, and skips, the byte order mark itself
+            if (utf16 == null) utf16 = newDecoder(StandardCharsets.UTF_16);
+            decoder = utf16;
+        }
+
+        int maxLength = (int) Math.ceil(source.remaining() * (double) decoder.maxCharsPerByte());
+        if (maxLength > chars.capacity()) {
+            chars = CharBuffer.allocate(maxLength);
+        }
+
+        ((Buffer) chars).clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(source, chars, true);
+        if (!result.isUnderflow()) result.throwException();
+        result = decoder.flush(chars);
+        if (!result.isUnderflow()) result.throwException();
+        ((Buffer) chars).flip();
+        return chars;
+    }
+
+    private static boolean startsWith(ByteBuffer source, int... mark) {
+        if (source.remaining() < mark.length) {
+            return false;
+        }
+
+        int position = source.position();
+        for (int i = 0; i < mark.length; i++) {
+            if ((source.get(position + i) & 0xFF) != mark[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
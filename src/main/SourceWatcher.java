@@ -0,0 +1,123 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description Watches the source directories, and every directory beneath them, for
+ * Apex files being created, changed or deleted. A burst of changes, e.g. an editor saving
+ * several files or a branch being checked out, is debounced into a single notification:
+ * after the first change, changes are collected until none have arrived for a short quiet
+ * period. Directories created while watching are watched too. Hidden directories are
+ * skipped, as SourceFinder skips them.
+ */
+public class SourceWatcher implements Closeable {
+    private static final long QUIET_PERIOD_MILLIS = 200;
+    private static final String APEX_EXTENSION = ".cls";
+
+    private final WatchService service;
+    private final HashMap<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+
+    public SourceWatcher(List<String> roots) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        for (String root : roots) {
+            register(Paths.get(root));
+        }
+    }
+
+    /**
+     * @description blocks until an Apex file, or a directory which may hold some, is
+     * created, changed or deleted, then waits for the burst of changes to settle.
+     * @return the files and directories which changed
+     */
+    public TreeSet<Path> awaitChanges() throws IOException, InterruptedException {
+        TreeSet<Path> changed = new TreeSet<Path>();
+        WatchKey key = service.take();
+
+        while (key != null) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null) {
+                    continue;
+                }
+
+                // events were lost, so anything in the directory may have changed
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed.add(directory);
+                    continue;
+                }
+
+                Path path = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                    if (!isHidden(path)) {
+                        register(path);
+                        changed.add(path);
+                    }
+                } else if (path.toString().endsWith(APEX_EXTENSION) || directories.containsValue(path)) {
+                    changed.add(path);
+                }
+            }
+
+            // a deleted directory's key is no longer valid
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+
+            key = changed.isEmpty()
+                ? service.take()
+                : service.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        return changed;
+    }
+
+    public void close() throws IOException {
+        service.close();
+    }
+
+    // watches a directory and every directory beneath it
+    private void register(Path root) throws IOException {
+        Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                if (!directory.equals(root) && isHidden(directory)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                WatchKey key = directory.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException ex) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static boolean isHidden(Path directory) {
+        Path name = directory.getFileName();
+        return name != null && name.toString().startsWith(".");
+    }
+}
@@ -0,0 +1,82 @@
+package main;
+
+import main.models.ClassModel;
+import main.models.MethodModel;
+import main.models.TopLevelModel;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @description A case insensitive index of everything an @see token can link to, built
+ * once after parsing: top level classes and enums, their methods and inner classes, and
+ * the methods of those inner classes. Each is mapped to the href of its page and anchor,
+ * so resolving a qualifier is a single hash lookup. Overloads after the first are indexed
+ * with their selector, e.g. MyClass.myMethod[2].
+ */
+public class SymbolTable {
+    private final HashMap<String, String> hrefs = new HashMap<String, String>();
+
+    public SymbolTable(List<TopLevelModel> models) {
+        // as with the model map, a later model replaces an earlier one with the same name
+        HashMap<String, TopLevelModel> nameToModel = new HashMap<String, TopLevelModel>();
+        for (TopLevelModel model : models) {
+            nameToModel.put(model.getName().toLowerCase(), model);
+        }
+
+        for (Map.Entry<String, TopLevelModel> entry : nameToModel.entrySet()) {
+            TopLevelModel model = entry.getValue();
+            String page = model.getName() + ".html";
+            hrefs.put(entry.getKey(), page);
+
+            // enums have no members to link to. Models which were not parsed this run, i.e.
+            // stand ins for unchanged files in an incremental build, are not ClassModels.
+            if (model instanceof ClassModel) {
+                ClassModel cModel = (ClassModel) model;
+                for (Map.Entry<String, ClassModel> child : cModel.getChildClassMap().entrySet()) {
+                    hrefs.put(child.getKey(), page + "#" + child.getValue().getName());
+                    putMethods(page, child.getValue());
+                }
+                // a method takes precedence over an inner class of the same name
+                putMethods(page, cModel);
+            }
+        }
+    }
+
+    private void putMethods(String page, ClassModel cModel) {
+        String name = cModel.getName();
+        String keyPrefix = name.toLowerCase() + ".";
+        String hrefPrefix = page + "#" + name + ".";
+
+        // count each method name's overloads, in the order they appear in the source file
+        HashMap<String, Integer> overloads = new HashMap<String, Integer>();
+        for (MethodModel method : cModel.getMethods()) {
+            String methodName = method.getMethodName();
+            String key = keyPrefix + methodName.toLowerCase();
+            Integer overload = overloads.get(key);
+            if (overload == null) {
+                overloads.put(key, 1);
+                hrefs.put(key, hrefPrefix + methodName);
+            } else {
+                overloads.put(key, overload + 1);
+                hrefs.put(key + "[" + overload + "]", hrefPrefix + methodName + "_" + overload);
+            }
+        }
+    }
+
+    /**
+     * @description finds the href of a class, inner class or method.
+     * @param parts the parts of the fully qualified name, e.g. MyClass, MyInnerClass, myMethod
+     * @param overload the zero based index of the method overload to link to. Ignored
+     * for classes.
+     * @return the href to link to, or null if nothing matches
+     */
+    public String getHref(String[] parts, int overload) {
+        String key = String.join(".", parts).toLowerCase();
+        if (parts.length > 1 && overload > 0) {
+            key += "[" + overload + "]";
+        }
+        return hrefs.get(key);
+    }
+}
@@ -0,0 +1,149 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @description Writes the generated files into a POSIX ustar archive, optionally gzip
+ * compressed. Each entry is a 512 byte header followed by the file's contents, padded to a
+ * multiple of 512 bytes. When compressed, each entry is compressed on the thread which
+ * wrote it, as a gzip member of its own; a gzip file may hold any number of members, which
+ * are decompressed as one stream, so the result is an ordinary .tar.gz.
+ */
+public class TarSink extends ArchiveSink {
+    private static final int BLOCK_SIZE = 512;
+    // tar readers expect the archive to be a whole number of 20 block records
+    private static final int RECORD_SIZE = 20 * BLOCK_SIZE;
+    private static final int NAME_LENGTH = 100;
+    private static final int PREFIX_LENGTH = 155;
+    private static final byte[] ZEROS = new byte[RECORD_SIZE];
+    // a gzip member's header: deflate compressed, no flags, no modification time, unknown OS
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final boolean compress;
+    // each thread builds its entries' headers, and compresses them, with its own buffers
+    private final ThreadLocal<byte[]> headers = ThreadLocal.withInitial(() -> new byte[BLOCK_SIZE]);
+    private final ThreadLocal<Deflation> deflations = ThreadLocal.withInitial(Deflation::new);
+    // the length of the archive before compression
+    private long written = 0;
+
+    // @param compress whether to gzip the archive, as a .tar.gz
+    public TarSink(String path, boolean compress) throws IOException {
+        super(path);
+        this.compress = compress;
+    }
+
+    protected void prepare(String fileName, byte[] contents, int length) throws IOException {
+        byte[] header = headers.get();
+        Arrays.fill(header, (byte) 0);
+        writeName(header, fileName);
+        writeOctal(header, 100, 8, 0644);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, length);
+        writeOctal(header, 136, 12, time / 1000);
+        header[156] = '0';
+        writeString(header, 257, "ustar\0");
+        writeString(header, 263, "00");
+
+        // the checksum is the sum of the header's bytes, counting its own field as spaces
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        writeOctal(header, 148, 7, checksum);
+
+        if (compress) {
+            Deflation deflation = deflations.get();
+            deflation.begin();
+            deflation.deflate(header, 0, BLOCK_SIZE);
+            deflation.deflate(contents, 0, length);
+            deflation.deflate(ZEROS, 0, padding(length, BLOCK_SIZE));
+            deflation.finish();
+        }
+    }
+
+    protected void append(String fileName, byte[] contents, int length) throws IOException {
+        if (compress) {
+            writeMember(deflations.get());
+        } else {
+            out.write(headers.get(), 0, BLOCK_SIZE);
+            out.write(contents, 0, length);
+            out.write(ZEROS, 0, padding(length, BLOCK_SIZE));
+        }
+        written += BLOCK_SIZE + length + padding(length, BLOCK_SIZE);
+    }
+
+    public synchronized void close() throws IOException {
+        // two empty blocks mark the end of the archive, which is then padded to a whole record
+        int padding = padding(written + 2 * BLOCK_SIZE, RECORD_SIZE);
+        if (compress) {
+            Deflation deflation = new Deflation();
+            deflation.begin();
+            deflation.deflate(ZEROS, 0, 2 * BLOCK_SIZE);
+            deflation.deflate(ZEROS, 0, padding);
+            deflation.finish();
+            writeMember(deflation);
+        } else {
+            out.write(ZEROS, 0, 2 * BLOCK_SIZE);
+            out.write(ZEROS, 0, padding);
+        }
+        out.close();
+    }
+
+    // a gzip member holding what a deflation compressed
+    private void writeMember(Deflation deflation) throws IOException {
+        out.write(GZIP_HEADER);
+        out.write(deflation.getCompressed().getBuffer(), 0, deflation.getCompressed().size());
+        writeInt(deflation.getCrc());
+        writeInt(deflation.getLength());
+    }
+
+    // gzip numbers are little endian, and the length is modulo 2^32
+    private void writeInt(long value) throws IOException {
+        out.write((int) (value & 0xFF));
+        out.write((int) (value >>> 8 & 0xFF));
+        out.write((int) (value >>> 16 & 0xFF));
+        out.write((int) (value >>> 24 & 0xFF));
+    }
+
+    // the zeros needed to pad a length to a multiple of size
+    private static int padding(long length, int size) {
+        int remainder = (int) (length % size);
+        return remainder > 0 ? size - remainder : 0;
+    }
+
+    // names too long for the name field are split at a '/' into the prefix field
+    private static void writeName(byte[] header, String fileName) throws IOException {
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        if (name.length <= NAME_LENGTH) {
+            System.arraycopy(name, 0, header, 0, name.length);
+            return;
+        }
+
+        for (int i = name.length - 1; i >= 0; i--) {
+            if (name[i] == '/' && i <= PREFIX_LENGTH && name.length - i - 1 <= NAME_LENGTH) {
+                System.arraycopy(name, i + 1, header, 0, name.length - i - 1);
+                System.arraycopy(name, 0, header, 345, i);
+                return;
+            }
+        }
+        throw new IOException("File name '" + fileName + "' is too long for a tar archive.");
+    }
+
+    // a zero padded octal number, ending with a NUL
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        while (octal.length() < length - 1) {
+            octal = "0" + octal;
+        }
+        writeString(header, offset, octal);
+    }
+
+    private static void writeString(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
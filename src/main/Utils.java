@@ -3,7 +3,6 @@ package main;
 import main.models.ApexModel;
 import main.models.ClassModel;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -13,7 +12,7 @@ public class Utils {
     // which would make the method or prop implicitly private
     private static final String[] KEYWORDS;
     private static final String[] COLLECTIONS;
-    private static final String URL_REGEXP = "(https?)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]";
+    private static final String[] ENUM_SCOPES;
 
     static {
 
@@ -23,30 +22,49 @@ public class Utils {
             "double", "id", "integer", "long", "object", "string", "time" };
 
         COLLECTIONS = new String[] { "list", "set", "map" };
+
+        ENUM_SCOPES = new String[] { "global", "public", "private" };
     }
 
+    // The helpers below are called for every line the parser sees, so rather than
+    // using regular expressions, they scan characters directly. Each one matches
+    // exactly what the regex noted in its comment would.
+
+    // line matches (case-insensitively) .*\bclass\b.* or contains "interface "
     public static boolean isClassOrInterface(String line) {
         // Accont for inner classes or @isTest classes without an access modifier; implicitly private
-        if ((line.toLowerCase().matches(".*\\bclass\\b.*") || line.toLowerCase().contains(ApexDoc.INTERFACE + " "))) {
-            return true;
-        }
-
-        return false;
+        return containsWordIgnoreCase(line, ApexDoc.CLASS) || indexOfIgnoreCase(line, ApexDoc.INTERFACE + " ") > -1;
     }
 
+    // line, once stripped of annotations, matches ^(global\s+|public\s+|private\s+)?enum\b.*
     public static boolean isEnum(String line) {
         line = stripAnnotations(line);
-        if (line.matches("^(global\\s+|public\\s+|private\\s+)?enum\\b.*")) {
-            return true;
+
+        int i = 0;
+        for (String scope : ENUM_SCOPES) {
+            if (line.startsWith(scope) && line.length() > scope.length() && isSpace(line.charAt(scope.length()))) {
+                i = scope.length();
+                while (i < line.length() && isSpace(line.charAt(i))) i++;
+                break;
+            }
         }
 
-        return false;
+        int end = i + ApexDoc.ENUM.length();
+        return line.startsWith(ApexDoc.ENUM, i) && (end == line.length() || !isWordChar(line.charAt(end)));
     }
 
+    // repeatedly removes the first match of @\w+\s*(\([\w=.*''/\s]+\))? while line starts with '@'
     public static String stripAnnotations(String line) {
         int i = 0;
         while (line.trim().startsWith("@")) {
-            line = line.trim().replaceFirst("@\\w+\\s*(\\([\\w=.*''/\\s]+\\))?", "");
+            line = line.trim();
+            for (int start = line.indexOf('@'); start > -1; start = line.indexOf('@', start + 1)) {
+                int end = annotationEnd(line, start);
+                if (end > -1) {
+                    line = line.substring(0, start) + line.substring(end);
+                    break;
+                }
+            }
             if (i >= 100) break; // infinite loop protect, just in case
             i++;
         }
@@ -54,6 +72,28 @@ public class Utils {
         return line;
     }
 
+    // index just past the annotation starting with the '@' at start, or -1 if there isn't one
+    private static int annotationEnd(String line, int start) {
+        int i = start + 1;
+        while (i < line.length() && isAsciiWordChar(line.charAt(i))) i++;
+        if (i == start + 1) {
+            return -1;
+        }
+
+        while (i < line.length() && isSpace(line.charAt(i))) i++;
+
+        // optional parameter list, e.g. (cacheable=true)
+        if (i < line.length() && line.charAt(i) == '(') {
+            int j = i + 1;
+            while (j < line.length() && isAnnotationParamChar(line.charAt(j))) j++;
+            if (j > i + 1 && j < line.length() && line.charAt(j) == ')') {
+                i = j + 1;
+            }
+        }
+
+        return i;
+    }
+
     public static void parseAnnotations(String previousLine, String line, ApexModel model) {
         // If previous line is not a comment line, it could be an annotation line.
         // Annotations may also be on the signature line, so check both for matches.
@@ -64,13 +104,13 @@ public class Utils {
         }
 
         ArrayList<String> matches = new ArrayList<String>();
-        Matcher m = Pattern.compile("@\\w+\\s*(\\([\\w=.*''/\\s]+\\))?").matcher(line);
+        Matcher m = Patterns.ANNOTATION.matcher(line);
 
         while (m.find()) {
             matches.add(m.group().trim());
         }
 
-        if (model != null) model.getAnnotations().addAll(matches);
+        if (model != null) model.addAnnotations(matches);
     }
 
     /**
@@ -80,11 +120,11 @@ public class Utils {
      * enums defined without without explicit access modifiers. These are assumed to be
      * private. Also, interface methods don't have scope, so don't skip those lines either.
      */
-    public static boolean shouldSkipLine(String line, ClassModel cModel){
-        if (containsScope(line) == null &&
-            !line.toLowerCase().startsWith(ApexDoc.ENUM + " ") &&
-            !line.toLowerCase().startsWith(ApexDoc.CLASS + " ") &&
-            !line.toLowerCase().startsWith(ApexDoc.INTERFACE + " ") &&
+    public static boolean shouldSkipLine(String line, ClassModel cModel, List<String> scopes) {
+        if (containsScope(line, scopes) == null &&
+            !startsWithWordIgnoreCase(line, ApexDoc.ENUM) &&
+            !startsWithWordIgnoreCase(line, ApexDoc.CLASS) &&
+            !startsWithWordIgnoreCase(line, ApexDoc.INTERFACE) &&
             !(cModel != null && cModel.getIsInterface() && line.contains("("))) {
                 return true;
         }
@@ -102,38 +142,37 @@ public class Utils {
     * types, so if a method is not given an explicit access modifier &
     * it doesnt start with these keywords, it will be undetectable by ApexDoc2.
     */
-    public static String containsScope(String line) {
-        for (int i = 0; i < ApexDoc.rgstrScope.length; i++) {
-            String scope = ApexDoc.rgstrScope[i].toLowerCase();
+    public static String containsScope(String line, List<String> scopes) {
+        // if line starts with annotations, replace them, so
+        // we can accurately use startsWith to match scope.
+        line = stripAnnotations(line).toLowerCase().trim();
 
-            // if line starts with annotations, replace them, so
-            // we can accurately use startsWith to match scope.
-            line = stripAnnotations(line);
-            line = line.toLowerCase().trim();
+        for (int i = 0; i < scopes.size(); i++) {
+            String scope = scopes.get(i).toLowerCase();
 
             // see if line starts with registered scopes.
-            if (line.startsWith(scope + " ")) {
+            if (startsWithWord(line, scope)) {
                 return scope;
             }
 
             // match implicitly private lines
             else if (scope.equals(ApexDoc.PRIVATE)) {
                 // match static props or methods:
-                if (line.startsWith("static ")) {
+                if (startsWithWord(line, "static")) {
                     return ApexDoc.PRIVATE;
                 }
 
                 // match methods that start with
                 // keywords or return primitive types:
                 for (String keyword : KEYWORDS) {
-                    if (line.startsWith(keyword + " ") && line.contains("(")) {
+                    if (startsWithWord(line, keyword) && line.contains("(")) {
                         return ApexDoc.PRIVATE;
                     }
                 }
 
                 // match metehods that return collections:
                 for (String collection : COLLECTIONS) {
-                    if (line.matches("^" + collection + "<.+>\\s.*") && line.contains("(")) {
+                    if (startsWithGenericType(line, collection) && line.contains("(")) {
                         return ApexDoc.PRIVATE;
                     }
                 }
@@ -142,6 +181,74 @@ public class Utils {
         return null;
     }
 
+    // line starts with word followed by a space
+    private static boolean startsWithWord(String line, String word) {
+        return line.startsWith(word) && line.length() > word.length() && line.charAt(word.length()) == ' ';
+    }
+
+    private static boolean startsWithWordIgnoreCase(String line, String word) {
+        return line.regionMatches(true, 0, word, 0, word.length())
+            && line.length() > word.length() && line.charAt(word.length()) == ' ';
+    }
+
+    // line matches ^type<.+>\s.*
+    private static boolean startsWithGenericType(String line, String type) {
+        int start = type.length() + 1;
+        if (!line.startsWith(type) || line.length() <= start || line.charAt(type.length()) != '<') {
+            return false;
+        }
+
+        for (int i = start + 1; i < line.length() - 1; i++) {
+            if (line.charAt(i) == '>' && isSpace(line.charAt(i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsWordIgnoreCase(String line, String word) {
+        for (int i = indexOfIgnoreCase(line, word, 0); i > -1; i = indexOfIgnoreCase(line, word, i + 1)) {
+            int end = i + word.length();
+            if ((i == 0 || !isWordChar(line.charAt(i - 1))) && (end == line.length() || !isWordChar(line.charAt(end)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOfIgnoreCase(String line, String str) {
+        return indexOfIgnoreCase(line, str, 0);
+    }
+
+    private static int indexOfIgnoreCase(String line, String str, int from) {
+        for (int i = from; i <= line.length() - str.length(); i++) {
+            if (line.regionMatches(true, i, str, 0, str.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // regex \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // regex \b considers letters, digits and underscores word characters
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    // regex \w
+    private static boolean isAsciiWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // regex [\w=.*''/\s]
+    private static boolean isAnnotationParamChar(char c) {
+        return isAsciiWordChar(c) || c == '=' || c == '.' || c == '*' || c == '\'' || c == '/' || isSpace(c);
+    }
+
     public static String previousWord(String str, int searchIdx) {
         if (str == null)
             return null;
@@ -169,23 +276,32 @@ public class Utils {
         }
     }
 
-    public static int countChars(String str, char ch) {
-        int count = 0;
-        for (int i = 0; i < str.length(); ++i) {
-            if (str.charAt(i) == ch) {
-                ++count;
-            }
-        }
-        return count;
-    }
-
     public static boolean isURL(String str) {
         if (str == null) return false;
-        return str.trim().matches("^" + URL_REGEXP);
+        // both patterns are anchored, so skip matching what can't be a match
+        str = str.trim();
+        return str.startsWith("http") && Patterns.URL.matcher(str).matches();
     }
 
     public static boolean isMarkdownURL(String str) {
-        return str.trim().matches("^\\[.*\\]\\(.*\\)$");
+        str = str.trim();
+        return str.startsWith("[") && Patterns.MARKDOWN_URL.matcher(str).matches();
+    }
+
+    // quotes a string as a JSON (and JavaScript) string literal
+    public static String toJSONString(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ' || c == '\u2028' || c == '\u2029') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
     }
 
     public static String markdownUrlToLink(String str) {
@@ -227,11 +343,11 @@ public class Utils {
     public static void printHelp() {
         log("\nApexDoc2 - a tool for generating documentation from Salesforce Apex code class files.\n");
         log("    Invalid Arguments detected.  The correct syntax is:\n");
-        log("ApexDoc2 -s <source_directory> -t <target_directory> [-i <includes>] [-e <excludes>] [-u <source_url>] [-h <home_page>] [-b <banner_page>] [-p <scope>] [-d <document_title>] [-c <toc_descriptions>] [-o <sort_order>]\n");
-        log("(S)ource Directory  - The folder location which contains your Apex .cls classes");
+        log("ApexDoc2 -s <source_directory> -t <target_directory> [-i <includes>] [-e <excludes>] [-u <source_url>] [-h <home_page>] [-b <banner_page>] [-p <scope>] [-d <document_title>] [-c <toc_descriptions>] [-o <sort_order>] [-j <threads>] [--incremental] [--cache] [--shared-menu] [--search] [--lazy-details <methods>] [--gzip] [--gzip-resources] [--archive <archive_file>] [--watch] [--serve <port>] [--metrics <metrics_file>]\n");
+        log("(S)ource Directory  - The folder location which contains your Apex .cls classes, or a comma separated list of folder locations. Each is searched recursively.");
         log("(T)arget_directory  - Specifies your target folder where documentation will be generated.");
-        log("(I)ncludes          - Optional. A comma separated list of file names and/or wildcard patterns that indicate which files in your source directory should be documented.");
-        log("(E)xcludes          - Optional. A comma separated list of file names and/or wildcard patterns that indicate which files in your source directory should NOT be documented.");
+        log("(I)ncludes          - Optional. A comma separated list of file names and/or glob patterns that indicate which files in your source directory should be documented. Patterns containing a '/' match the path relative to the source directory.");
+        log("(E)xcludes          - Optional. A comma separated list of file names and/or glob patterns that indicate which files in your source directory should NOT be documented. Patterns containing a '/' match the path relative to the source directory.");
         log("Source (U)RL        - Optional. Specifies a URL where the source is hosted (so ApexDoc2 can provide links to your source).");
         log("(H)ome Page         - Optional. Specifies the html file that contains the contents for the home page\'s content area.");
         log("(B)anner Page       - Optional. Specifies the text file that contains project information for the documentation header.");
@@ -239,5 +355,17 @@ public class Utils {
         log("(D)ocument Title    - Optional. The value for the document's <title> attribute. Defaults to 'ApexDocs'. ");
         log("TO(C) Descriptions  - Optional. If 'false', will hide the method's description in the class's TOC. Defaults to 'true'.");
         log("Sort (O)rder        - Optional. The order in which class methods, properties, and inner classes are presented. Either 'Utils.logical', the order they appear in the source file, or 'alpha', alphabetically. Defaults to 'alpha'. ");
+        log("Threads (J)         - Optional. The number of threads used to parse files and render pages. Output is identical to a single threaded run. Defaults to 1.");
+        log("--incremental       - Optional. Only re-parse changed files and re-render the pages they affect, using the manifest written to the target directory by the last run.");
+        log("--cache             - Optional. Cache parsed models in the target directory, and load unchanged files from the cache instead of parsing them.");
+        log("--shared-menu       - Optional. Write the navigation menu once, to menu.js, instead of into every page. Output then grows linearly with the number of classes.");
+        log("--search            - Optional. Add a search box to every page, backed by a search index of every class, interface, enum, method and property, written in small shards which are only loaded as a search needs them.");
+        log("--lazy-details      - Optional. Classes with at least this many methods show only the methods' TOC and headers when their page opens. Each method's details are written to separate fragments, which the page fetches as methods are scrolled into view or linked to.");
+        log("--gzip              - Optional. Also write a gzip compressed copy of each page, and of menu.js, e.g. index.html.gz, for static hosts which serve precompressed files. Unchanged copies are not rewritten.");
+        log("--gzip-resources    - Optional. As --gzip, and also compress the stylesheets and scripts copied to the target directory.");
+        log("--archive           - Optional. Write the documentation to a single .zip, .tar, .tar.gz or .tgz archive, in one pass, instead of to the target directory. Can't be combined with --incremental, --gzip or --watch.");
+        log("--watch             - Optional. Keep running, and re-parse changed files and re-render the pages they affect whenever Apex files in the source directories change.");
+        log("--serve             - Optional. Serve a preview of the documentation on the given port of localhost instead of writing it, rendering each page when it's first requested.");
+        log("--metrics           - Optional. Write the wall time and allocation of each phase of the run, and the slowest files and pages, to the given file as JSON.");
     }
 }
\ No newline at end of file
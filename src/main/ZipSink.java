@@ -0,0 +1,171 @@
+package main;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+
+/**
+ * @description Writes the generated files into a zip archive. Pages, scripts and
+ * stylesheets are deflated, each on the thread which wrote it; images, which are
+ * compressed already, are stored as they are. Each entry's sizes and CRC-32 are known
+ * before it's appended, so its local header is complete and no data descriptor follows
+ * it. Once an archive outgrows the 65,535 entries or 4GB the original format can count,
+ * it's finished with ZIP64 records: entries past 4GB carry their offset in a ZIP64 extra
+ * field, and a ZIP64 end of central directory record holds the totals. Each file is held
+ * in memory while it's written, so no one entry is ever 4GB itself.
+ */
+public class ZipSink extends ArchiveSink {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+    private static final int UTF8_NAMES = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    // the largest values the original format can hold; larger ones need ZIP64 records
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    // each thread compresses its files with its own deflater
+    private final ThreadLocal<Deflation> deflations = ThreadLocal.withInitial(Deflation::new);
+    // the central directory, written at the end, and a scratch buffer for local headers
+    private final Bytes centralDirectory = new Bytes();
+    private final Bytes header = new Bytes();
+    private final int dosTime;
+    private final int dosDate;
+    private int entries = 0;
+    private long offset = 0;
+
+    public ZipSink(String path) throws IOException {
+        super(path);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        this.dosTime = calendar.get(Calendar.HOUR_OF_DAY) << 11 | calendar.get(Calendar.MINUTE) << 5
+            | calendar.get(Calendar.SECOND) >> 1;
+        this.dosDate = Math.max(0, calendar.get(Calendar.YEAR) - 1980) << 9
+            | (calendar.get(Calendar.MONTH) + 1) << 5 | calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    protected void prepare(String fileName, byte[] contents, int length) {
+        Deflation deflation = deflations.get();
+        deflation.begin();
+        if (isStored(fileName)) {
+            deflation.checksum(contents, 0, length);
+        } else {
+            deflation.deflate(contents, 0, length);
+            deflation.finish();
+        }
+    }
+
+    protected void append(String fileName, byte[] contents, int length) throws IOException {
+        Deflation deflation = deflations.get();
+        boolean isStored = isStored(fileName);
+        byte[] data = isStored ? contents : deflation.getCompressed().getBuffer();
+        int size = isStored ? length : deflation.getCompressed().size();
+        byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+        // an entry starting past 4GB records where in a ZIP64 extra field
+        boolean isZip64 = offset >= MAX_SIZE;
+
+        header.reset();
+        writeInt(header, LOCAL_HEADER);
+        writeShort(header, VERSION);
+        writeEntry(header, isStored, deflation, size, name, 0);
+        header.write(name, 0, name.length);
+        out.write(header.getBuffer(), 0, header.size());
+        out.write(data, 0, size);
+
+        writeInt(centralDirectory, CENTRAL_HEADER);
+        writeShort(centralDirectory, isZip64 ? ZIP64_VERSION : VERSION);
+        writeShort(centralDirectory, isZip64 ? ZIP64_VERSION : VERSION);
+        writeEntry(centralDirectory, isStored, deflation, size, name, isZip64 ? 12 : 0);
+        writeShort(centralDirectory, 0); // comment length
+        writeShort(centralDirectory, 0); // disk number
+        writeShort(centralDirectory, 0); // internal attributes
+        writeInt(centralDirectory, 0); // external attributes
+        writeInt(centralDirectory, isZip64 ? MAX_SIZE : offset);
+        centralDirectory.write(name, 0, name.length);
+        if (isZip64) {
+            writeShort(centralDirectory, ZIP64_EXTRA);
+            writeShort(centralDirectory, 8); // the extra field's length
+            writeLong(centralDirectory, offset);
+        }
+
+        offset += header.size() + size;
+        entries++;
+    }
+
+    public synchronized void close() throws IOException {
+        out.write(centralDirectory.getBuffer(), 0, centralDirectory.size());
+        long end = offset + centralDirectory.size();
+        boolean isZip64 = entries >= MAX_ENTRIES || centralDirectory.size() >= MAX_SIZE || offset >= MAX_SIZE;
+
+        header.reset();
+        if (isZip64) {
+            writeInt(header, ZIP64_END_OF_CENTRAL_DIRECTORY);
+            writeLong(header, 44); // the record's size, after this field
+            writeShort(header, ZIP64_VERSION);
+            writeShort(header, ZIP64_VERSION);
+            writeInt(header, 0); // this disk
+            writeInt(header, 0); // the disk the central directory starts on
+            writeLong(header, entries);
+            writeLong(header, entries);
+            writeLong(header, centralDirectory.size());
+            writeLong(header, offset);
+
+            writeInt(header, ZIP64_LOCATOR);
+            writeInt(header, 0); // the disk the ZIP64 end of central directory is on
+            writeLong(header, end);
+            writeInt(header, 1); // the number of disks
+        }
+
+        // with ZIP64, the values which don't fit are set to their maximum
+        writeInt(header, END_OF_CENTRAL_DIRECTORY);
+        writeShort(header, 0); // this disk
+        writeShort(header, 0); // the disk the central directory starts on
+        writeShort(header, Math.min(entries, MAX_ENTRIES));
+        writeShort(header, Math.min(entries, MAX_ENTRIES));
+        writeInt(header, Math.min(centralDirectory.size(), MAX_SIZE));
+        writeInt(header, Math.min(offset, MAX_SIZE));
+        writeShort(header, 0); // comment length
+        out.write(header.getBuffer(), 0, header.size());
+        out.close();
+    }
+
+    // the fields local and central headers share, from the flags to the extra field's length
+    private void writeEntry(Bytes to, boolean isStored, Deflation deflation, int size, byte[] name, int extraLength) {
+        writeShort(to, UTF8_NAMES);
+        writeShort(to, isStored ? STORED : DEFLATED);
+        writeShort(to, dosTime);
+        writeShort(to, dosDate);
+        writeInt(to, deflation.getCrc());
+        writeInt(to, size);
+        writeInt(to, deflation.getLength());
+        writeShort(to, name.length);
+        writeShort(to, extraLength);
+    }
+
+    // images are compressed already
+    private static boolean isStored(String fileName) {
+        return fileName.endsWith(".png");
+    }
+
+    // zip numbers are little endian
+    private static void writeShort(Bytes to, int value) {
+        to.write(value & 0xFF);
+        to.write(value >>> 8 & 0xFF);
+    }
+
+    private static void writeInt(Bytes to, long value) {
+        writeShort(to, (int) (value & 0xFFFF));
+        writeShort(to, (int) (value >>> 16 & 0xFFFF));
+    }
+
+    private static void writeLong(Bytes to, long value) {
+        writeInt(to, value & 0xFFFFFFFFL);
+        writeInt(to, value >>> 32);
+    }
+}
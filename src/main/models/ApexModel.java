@@ -1,10 +1,18 @@
 package main.models;
 
 import main.ApexDoc;
+import main.GeneratorConfig;
+import main.IncludeLoader;
+import main.Patterns;
 import main.Utils;
 
-import java.io.File;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ApexModel {
 
@@ -21,28 +29,164 @@ public class ApexModel {
     private static final String RETURN = "@return";
     private static final String SEE = "@see";
 
+    // optional tags, by their bit in tagMask
+    protected static final int AUTHOR_TAG = 0;
+    protected static final int DATE_TAG = 1;
+    protected static final int DEPRECATED_TAG = 2;
+    protected static final int EXAMPLE_TAG = 3;
+    protected static final int EXCEPTION_TAG = 4;
+    protected static final int GROUP_TAG = 5;
+    protected static final int GROUP_CONTENT_TAG = 6;
+    protected static final int SEE_TAG = 7;
+    protected static final int RETURN_TAG = 8;
+    private static final int TAG_COUNT = 9;
+
+    // shared by every model without annotations, params or optional tags
+    protected static final String[] NO_STRINGS = new String[0];
+
     // model state variables
-    private String author = "";
-    private String date = "";
-    private String deprecated = "";
     private String description = "";
-    private ArrayList<String> annotations;
-    protected String example = "";
-    protected String exception = "";
-    protected String groupName = "";
-    protected String groupContentPath = "";
-    protected ArrayList<String> params;
-    protected String see = "";
-    protected String returns = "";
+    // the optional tags are stored sparsely, as most models have few of them: a bit
+    // is set in tagMask for each tag with a value, and tagValues holds only those
+    // values, in the order of their bits
+    private int tagMask;
+    private String[] tagValues = NO_STRINGS;
+    private String[] annotations = NO_STRINGS;
+    protected String[] params = NO_STRINGS;
 
     private String nameLine;
     private int lineNum;
     protected String scope;
 
-    public ApexModel(ArrayList<String> comments) {
-        annotations = new ArrayList<String>();
-        params = new ArrayList<String>();
-        this.parseComments(comments);
+    public ApexModel(ArrayList<String> comments, GeneratorConfig config) {
+        this.parseComments(comments, config.getTargetDirectory());
+    }
+
+    // a model without comments, e.g. one standing in for a model which wasn't parsed
+    protected ApexModel() {
+    }
+
+    // binary serialization, used to cache parsed models between runs. The
+    // fields are read back in exactly the order write(DataOutput) writes them.
+    protected ApexModel(DataInput in) throws IOException {
+        nameLine = readString(in);
+        lineNum = in.readInt();
+        scope = intern(readString(in));
+        setTag(AUTHOR_TAG, intern(readString(in)));
+        setTag(DATE_TAG, intern(readString(in)));
+        setTag(DEPRECATED_TAG, readString(in));
+        description = readString(in);
+        setTag(EXAMPLE_TAG, readString(in));
+        setTag(EXCEPTION_TAG, readString(in));
+        setTag(GROUP_TAG, intern(readString(in)));
+        setTag(GROUP_CONTENT_TAG, intern(readString(in)));
+        setTag(SEE_TAG, readString(in));
+        setTag(RETURN_TAG, readString(in));
+        annotations = readStrings(in);
+        for (int i = 0; i < annotations.length; i++) {
+            annotations[i] = intern(annotations[i]);
+        }
+        params = readStrings(in);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        writeString(out, nameLine);
+        out.writeInt(lineNum);
+        writeString(out, scope);
+        writeString(out, getTag(AUTHOR_TAG));
+        writeString(out, getTag(DATE_TAG));
+        writeString(out, getTag(DEPRECATED_TAG));
+        writeString(out, description);
+        writeString(out, getTag(EXAMPLE_TAG));
+        writeString(out, getTag(EXCEPTION_TAG));
+        writeString(out, getTag(GROUP_TAG));
+        writeString(out, getTag(GROUP_CONTENT_TAG));
+        writeString(out, getTag(SEE_TAG));
+        writeString(out, getTag(RETURN_TAG));
+        writeStrings(out, annotations);
+        writeStrings(out, params);
+    }
+
+    // strings are written as a byte length (-1 for null) followed by UTF-8 bytes,
+    // since DataOutput.writeUTF cannot hold strings longer than 64KB
+    protected static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        } else if (length == 0) {
+            return "";
+        }
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    protected static String[] readStrings(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size == 0) {
+            return NO_STRINGS;
+        }
+
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    protected static void writeStrings(DataOutput out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    // returns the one shared instance of a token repeated across models, e.g. a scope,
+    // an annotation or an author, so large orgs don't hold a copy per model
+    protected static String intern(String token) {
+        return token == null ? null : token.intern();
+    }
+
+    // the value of an optional tag, or "" if it has none
+    protected String getTag(int tag) {
+        int bit = 1 << tag;
+        return (tagMask & bit) == 0 ? "" : tagValues[Integer.bitCount(tagMask & (bit - 1))];
+    }
+
+    private void setTag(int tag, String value) {
+        int bit = 1 << tag;
+        int index = Integer.bitCount(tagMask & (bit - 1));
+        boolean present = (tagMask & bit) != 0;
+
+        if (value == null || value.isEmpty()) {
+            if (present) {
+                String[] values = new String[tagValues.length - 1];
+                System.arraycopy(tagValues, 0, values, 0, index);
+                System.arraycopy(tagValues, index + 1, values, index, values.length - index);
+                tagValues = values.length == 0 ? NO_STRINGS : values;
+                tagMask &= ~bit;
+            }
+        } else if (present) {
+            tagValues[index] = value;
+        } else {
+            String[] values = new String[tagValues.length + 1];
+            System.arraycopy(tagValues, 0, values, 0, index);
+            values[index] = value;
+            System.arraycopy(tagValues, index, values, index + 1, tagValues.length - index);
+            tagValues = values;
+            tagMask |= bit;
+        }
     }
 
     // model attribute getters / setters
@@ -51,7 +195,6 @@ public class ApexModel {
         // we'll capture those and display them separately
         this.nameLine = Utils.stripAnnotations(nameLine).trim();
         this.lineNum = lineNum;
-        parseScope();
     }
 
     public String getNameLine() {
@@ -66,11 +209,12 @@ public class ApexModel {
         return scope == null ? "" : scope;
     }
 
-    protected void parseScope() {
+    // call once the name line is set
+    protected void parseScope(List<String> scopes) {
         if (nameLine != null) {
-            String str = Utils.containsScope(nameLine);
+            String str = Utils.containsScope(nameLine, scopes);
             if (str != null) {
-                scope = str;
+                scope = intern(str);
             }
 
             // TODO: perhaps this branch of control flow should
@@ -89,34 +233,47 @@ public class ApexModel {
     }
 
     public String getAuthor() {
-        return author == null ? "" : author;
+        return getTag(AUTHOR_TAG);
     }
 
     public String getDeprecated() {
-        return deprecated == null ? "" : deprecated;
+        return getTag(DEPRECATED_TAG);
     }
 
     public String getDate() {
-        return date == null ? "" : date;
+        return getTag(DATE_TAG);
     }
 
     public String getExample() {
         // return example and remove trailing white space which
         // may have built up due to the allowance of preserving
         // white pace in complex code example blocks for methods
-        return example == null ? "" : example.replace("\\s+$", "");
+        return getTag(EXAMPLE_TAG).replace("\\s+$", "");
     }
 
     public String getSee() {
-        return see == null ? "" : see;
+        return getTag(SEE_TAG);
     }
 
-    public ArrayList<String> getAnnotations() {
-        return annotations;
+    public List<String> getAnnotations() {
+        return Arrays.asList(annotations);
+    }
+
+    public void addAnnotations(List<String> annotations) {
+        if (!annotations.isEmpty()) {
+            String[] merged = Arrays.copyOf(this.annotations, this.annotations.length + annotations.size());
+            for (int i = 0; i < annotations.size(); i++) {
+                merged[this.annotations.length + i] = intern(annotations.get(i));
+            }
+            this.annotations = merged;
+        }
     }
 
     // comment parser
-    private void parseComments(ArrayList<String> comments) {
+    private void parseComments(ArrayList<String> comments, String targetDirectory) {
+        String author = "", date = "", deprecated = "", example = "", exception = "";
+        String groupName = "", groupContentPath = "", see = "", returns = "";
+        ArrayList<String> params = new ArrayList<String>();
         String currBlock = null, block = null;
         for (String comment : comments) {
             boolean newBlock = false, isBreak = false;
@@ -197,7 +354,7 @@ public class ApexModel {
                 } else if (currBlock.equals(EXAMPLE)) {
                     example += (!example.isEmpty() ? "\n" : "") + line;
                 } else if (currBlock.equals(GROUP_CONTENT)) {
-                    if (pathExists(line.trim())) groupContentPath += line.trim();
+                    if (pathExists(line.trim(), targetDirectory)) groupContentPath += line.trim();
                 }
             // not a recognized token, assume we're in un-tagged description
             } else if (currBlock == null && !line.trim().isEmpty()) {
@@ -209,18 +366,31 @@ public class ApexModel {
 
             if (isBreak) break;
         }
+
+        setTag(AUTHOR_TAG, intern(author));
+        setTag(DATE_TAG, intern(date));
+        setTag(DEPRECATED_TAG, deprecated);
+        setTag(EXAMPLE_TAG, example);
+        setTag(EXCEPTION_TAG, exception);
+        setTag(GROUP_TAG, intern(groupName));
+        setTag(GROUP_CONTENT_TAG, intern(groupContentPath));
+        setTag(SEE_TAG, see);
+        setTag(RETURN_TAG, returns);
+        if (!params.isEmpty()) {
+            this.params = params.toArray(new String[params.size()]);
+        }
     }
 
     // make sure path relative to target
     // directory exists for @group-content token
-    private boolean pathExists(String line) {
-        String root = ApexDoc.targetDirectory;
+    private boolean pathExists(String line, String targetDirectory) {
+        String root = targetDirectory;
         if (!root.endsWith("/") || !root.endsWith("\\")) {
             root += "/";
         }
 
         String path = root + line.trim();
-        if (line.trim().matches(".*\\.s?html?$") && new File(path).exists()) {
+        if (Patterns.HTML_FILE.matcher(line.trim()).matches() && IncludeLoader.exists(path)) {
             return true;
         } else {
             Utils.log("\nWARNING: @group-content path: '" + path + "' is invalid!\n");
@@ -1,6 +1,10 @@
 package main.models;
 
 import main.ApexDoc;
+import main.GeneratorConfig;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.TreeMap;
@@ -11,68 +15,139 @@ public class ClassModel extends TopLevelModel {
 
     private boolean isInterface;
     private ClassModel cmodelParent;
+    // each list is created when its first member is added, so the many classes
+    // without e.g. inner classes or enums don't each hold an empty list
     private ArrayList<MethodModel> methods;
     private ArrayList<PropertyModel> properties;
     private ArrayList<ClassModel> childClasses;
     private ArrayList<EnumModel> enums;
-    private TreeMap<String, ClassModel> childClassNameToChildClass;
 
-    public ClassModel(ClassModel cmodelParent, ArrayList<String> comments, String nameLine, int lineNum) {
-        super(comments, ModelType.CLASS);
+    public ClassModel(ClassModel cmodelParent, ArrayList<String> comments, String nameLine, int lineNum,
+            GeneratorConfig config) {
+        super(comments, ModelType.CLASS, config);
         super.setNameLine(nameLine, lineNum);
+        parseScope(config.getScopes());
 
         this.cmodelParent = cmodelParent;
-        this.childClasses = new ArrayList<ClassModel>();
-        this.methods = new ArrayList<MethodModel>();
-        this.properties = new ArrayList<PropertyModel>();
-        this.enums = new ArrayList<EnumModel>();
-        this.childClassNameToChildClass = new TreeMap<String, ClassModel>();
 
         if (nameLine.toLowerCase().contains(" " + ApexDoc.INTERFACE + " ")) {
             this.isInterface = true;
         }
     }
 
-    public String getExample() {
-        // return example and remove trailing white space which
-        // may have built up due to the allowance of preserving
-        // white pace in complex code example blocks for methods
-        return example == null ? "" : example.replace("\\s+$", "");
+    public ClassModel(ClassModel cmodelParent, DataInput in) throws IOException {
+        super(in, ModelType.CLASS);
+
+        this.cmodelParent = cmodelParent;
+        this.isInterface = in.readBoolean();
+
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            addMethod(new MethodModel(in));
+        }
+
+        size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            addProperty(new PropertyModel(in));
+        }
+
+        size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            addEnum(new EnumModel(in));
+        }
+
+        size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            addChildClass(new ClassModel(this, in));
+        }
+        trimToSize();
     }
 
-    public String getSee() {
-        return see == null ? "" : see;
+    public void write(DataOutput out) throws IOException {
+        super.write(out);
+        out.writeBoolean(isInterface);
+
+        List<MethodModel> methods = getMethods();
+        out.writeInt(methods.size());
+        for (MethodModel method : methods) {
+            method.write(out);
+        }
+
+        List<PropertyModel> properties = getProperties();
+        out.writeInt(properties.size());
+        for (PropertyModel property : properties) {
+            property.write(out);
+        }
+
+        List<EnumModel> enums = getEnums();
+        out.writeInt(enums.size());
+        for (EnumModel _enum : enums) {
+            _enum.write(out);
+        }
+
+        List<ClassModel> childClasses = getChildClasses();
+        out.writeInt(childClasses.size());
+        for (ClassModel child : childClasses) {
+            child.write(out);
+        }
+    }
+
+    // drops the spare capacity of this class's lists, and its inner classes', once parsing is done
+    public void trimToSize() {
+        if (methods != null) methods.trimToSize();
+        if (properties != null) properties.trimToSize();
+        if (enums != null) enums.trimToSize();
+        if (childClasses != null) {
+            childClasses.trimToSize();
+            for (ClassModel child : childClasses) {
+                child.trimToSize();
+            }
+        }
+    }
+
+    public List<EnumModel> getEnums() {
+        return enums == null ? Collections.<EnumModel>emptyList() : enums;
     }
 
-    public ArrayList<EnumModel> getEnums() {
-        return enums;
+    public void addEnum(EnumModel _enum) {
+        if (enums == null) enums = new ArrayList<EnumModel>();
+        enums.add(_enum);
     }
 
     public ArrayList<EnumModel> getEnumsSorted() {
         TreeMap<String, EnumModel> tm = new TreeMap<String, EnumModel>();
 
-        for (EnumModel _enum : enums) {
+        for (EnumModel _enum : getEnums()) {
             tm.put(_enum.getName().toLowerCase(), _enum);
         }
 
         return new ArrayList<EnumModel>(tm.values());
     }
 
-    public ArrayList<PropertyModel> getProperties() {
-        return properties;
+    public List<PropertyModel> getProperties() {
+        return properties == null ? Collections.<PropertyModel>emptyList() : properties;
+    }
+
+    public void addProperty(PropertyModel property) {
+        if (properties == null) properties = new ArrayList<PropertyModel>();
+        properties.add(property);
     }
 
     public ArrayList<PropertyModel> getPropertiesSorted() {
         TreeMap<String, PropertyModel> tm = new TreeMap<String, PropertyModel>();
 
-        for (PropertyModel prop : properties) {
+        for (PropertyModel prop : getProperties()) {
             tm.put(prop.getPropertyName().toLowerCase(), prop);
         }
 
         return new ArrayList<PropertyModel>(tm.values());
     }
 
-    public ArrayList<MethodModel> getMethods() {
+    public List<MethodModel> getMethods() {
+        if (methods == null) {
+            return Collections.<MethodModel>emptyList();
+        }
+
         // ensure interface methods take the
         // scope of their defining type
         if (this.isInterface) {
@@ -84,9 +159,13 @@ public class ClassModel extends TopLevelModel {
         return methods;
     }
 
+    public void addMethod(MethodModel method) {
+        if (methods == null) methods = new ArrayList<MethodModel>();
+        methods.add(method);
+    }
+
     public ArrayList<MethodModel> getMethodsSorted() {
-        @SuppressWarnings("unchecked")
-		List<MethodModel> sorted = (List<MethodModel>)methods.clone();
+        List<MethodModel> sorted = new ArrayList<MethodModel>(getMethods());
         Collections.sort(sorted, new Comparator<MethodModel>() {
             public int compare(MethodModel o1, MethodModel o2) {
                 String methodName1 = o1.getMethodName();
@@ -109,14 +188,14 @@ public class ClassModel extends TopLevelModel {
         this.methods = methods;
     }
 
-    public ArrayList<ClassModel> getChildClasses() {
-        return childClasses;
+    public List<ClassModel> getChildClasses() {
+        return childClasses == null ? Collections.<ClassModel>emptyList() : childClasses;
     }
 
     public ArrayList<ClassModel> getChildClassesSorted() {
         TreeMap<String, ClassModel> tm = new TreeMap<String, ClassModel>();
 
-        for (ClassModel cm : childClasses) {
+        for (ClassModel cm : getChildClasses()) {
             tm.put(cm.getName().toLowerCase(), cm);
         }
 
@@ -124,12 +203,17 @@ public class ClassModel extends TopLevelModel {
     }
 
     public void addChildClass(ClassModel child) {
+        if (childClasses == null) childClasses = new ArrayList<ClassModel>();
         childClasses.add(child);
-        // also add child class to map for use in making @see links
-        childClassNameToChildClass.put(child.getName().toLowerCase(), child);
     }
 
+    // the child classes by lower case name, for use in making @see links. Built when
+    // it's needed rather than kept with every class, since only the symbol table uses it.
     public TreeMap<String, ClassModel> getChildClassMap() {
+        TreeMap<String, ClassModel> childClassNameToChildClass = new TreeMap<String, ClassModel>();
+        for (ClassModel child : getChildClasses()) {
+            childClassNameToChildClass.put(child.getName().toLowerCase(), child);
+        }
         return childClassNameToChildClass;
     }
 
@@ -184,7 +268,7 @@ public class ClassModel extends TopLevelModel {
         if (this.cmodelParent != null) {
             group = cmodelParent.getGroupName();
         } else {
-            group = groupName;
+            group = getTag(GROUP_TAG);
         }
 
         return group.isEmpty() ? null : group;
@@ -1,15 +1,32 @@
 package main.models;
 
 import main.ApexDoc;
+import main.GeneratorConfig;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class EnumModel extends TopLevelModel {
 
-    private ArrayList<String> values = new ArrayList<String>();
+    private String[] values = NO_STRINGS;
 
-    public EnumModel(ArrayList<String> comments, String nameLine, int lineNum) {
-        super(comments, ModelType.ENUM);
+    public EnumModel(ArrayList<String> comments, String nameLine, int lineNum, GeneratorConfig config) {
+        super(comments, ModelType.ENUM, config);
         this.setNameLine(nameLine, lineNum);
+        parseScope(config.getScopes());
+    }
+
+    public EnumModel(DataInput in) throws IOException {
+        super(in, ModelType.ENUM);
+        this.values = readStrings(in);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        super.write(out);
+        writeStrings(out, values);
     }
 
     public String getName() {
@@ -20,7 +37,7 @@ public class EnumModel extends TopLevelModel {
     }
 
     public String getGroupName() {
-        return groupName;
+        return getTag(GROUP_TAG);
     }
 
     protected void setNameLine(String nameLine, int lineNum) {
@@ -33,7 +50,11 @@ public class EnumModel extends TopLevelModel {
         super.setNameLine(nameLine.trim(), lineNum);
     }
 
-    public ArrayList<String> getValues() {
-        return values;
+    public List<String> getValues() {
+        return Arrays.asList(values);
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values.isEmpty() ? NO_STRINGS : values.toArray(new String[values.size()]);
     }
 }
\ No newline at end of file
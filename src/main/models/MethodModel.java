@@ -1,13 +1,23 @@
 package main.models;
 
+import main.GeneratorConfig;
 import main.Utils;
+import java.io.DataInput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class MethodModel extends ApexModel {
 
-    public MethodModel(ArrayList<String> comments, String nameLine, int lineNum) {
-        super(comments);
+    public MethodModel(ArrayList<String> comments, String nameLine, int lineNum, GeneratorConfig config) {
+        super(comments, config);
         this.setNameLine(nameLine, lineNum);
+        parseScope(config.getScopes());
+    }
+
+    public MethodModel(DataInput in) throws IOException {
+        super(in);
     }
 
     protected void setNameLine(String nameLine, int lineNum) {
@@ -21,16 +31,16 @@ public class MethodModel extends ApexModel {
         super.setNameLine(nameLine, lineNum);
     }
 
-    public ArrayList<String> getParams() {
-        return params;
+    public List<String> getParams() {
+        return Arrays.asList(params);
     }
 
     public String getException() {
-        return exception == null ? "" : exception;
+        return getTag(EXCEPTION_TAG);
     }
 
     public String getReturns() {
-        return returns == null ? "" : returns;
+        return getTag(RETURN_TAG);
     }
 
     public String getMethodName() {
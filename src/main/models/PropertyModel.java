@@ -1,12 +1,21 @@
 package main.models;
 
+import main.GeneratorConfig;
+
+import java.io.DataInput;
+import java.io.IOException;
 import java.util.ArrayList;
 
 public class PropertyModel extends ApexModel {
 
-    public PropertyModel(ArrayList<String> comments, String nameLine, int lineNum) {
-        super(comments);
+    public PropertyModel(ArrayList<String> comments, String nameLine, int lineNum, GeneratorConfig config) {
+        super(comments, config);
         this.setNameLine(nameLine, lineNum);
+        parseScope(config.getScopes());
+    }
+
+    public PropertyModel(DataInput in) throws IOException {
+        super(in);
     }
 
     protected void setNameLine(String nameLine, int lineNum) {
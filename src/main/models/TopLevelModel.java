@@ -1,5 +1,9 @@
 package main.models;
 
+import main.GeneratorConfig;
+
+import java.io.DataInput;
+import java.io.IOException;
 import java.util.ArrayList;
 
 public abstract class TopLevelModel extends ApexModel {
@@ -10,8 +14,18 @@ public abstract class TopLevelModel extends ApexModel {
 
     public ModelType modelType;
 
-    public TopLevelModel(ArrayList<String> comments, ModelType modelType) {
-        super(comments);
+    public TopLevelModel(ArrayList<String> comments, ModelType modelType, GeneratorConfig config) {
+        super(comments, config);
+        this.modelType = modelType;
+    }
+
+    protected TopLevelModel(ModelType modelType) {
+        super();
+        this.modelType = modelType;
+    }
+
+    protected TopLevelModel(DataInput in, ModelType modelType) throws IOException {
+        super(in);
         this.modelType = modelType;
     }
 
@@ -20,7 +34,7 @@ public abstract class TopLevelModel extends ApexModel {
     public abstract String getGroupName();
 
     public String getGroupContentPath() {
-        return groupContentPath;
+        return getTag(GROUP_CONTENT_TAG);
     }
 
     public ModelType getModelType() {
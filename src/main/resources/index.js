@@ -5,6 +5,8 @@ const SCOPES = ['global', 'public', 'private', 'protected', 'testMethod', 'webSe
 const APEX_DOC_MENU = 'APEX_DOC_2_MENU';
 const APEX_DOC_ACTIVE_EL = 'APEX_DOC_2_ACTIVE_EL';
 const APEX_DOC_SCOPE = 'APEX_DOC_2_SCOPE';
+const SEARCH_KEY_LENGTH = 2;
+const SEARCH_MAX_RESULTS = 50;
 
 // document ready function - removes jQuery dependency
 document.addEventListener("DOMContentLoaded", () => {
@@ -15,6 +17,7 @@ document.addEventListener("DOMContentLoaded", () => {
 	readScope();
 	hideAllScopes();
 	showScopes();
+	initMethodDetails();
 });
 
 // fire un-mounting functions
@@ -41,6 +44,25 @@ function initHighlightJs() {
 	});
 }
 
+// render the navigation menu shared by every page. Only used when docs are
+// generated with --shared-menu: menu.js calls this as the page loads, and
+// since every page loads the same menu.js, the browser only fetches it once.
+function renderMenu(html) {
+	const navbar = document.getElementById('navbar');
+	navbar && (navbar.innerHTML = html);
+}
+
+// loads a generated script, such as a search shard or method details, once
+const scriptsRequested = new Set();
+function requestScript(src) {
+	if (!scriptsRequested.has(src)) {
+		scriptsRequested.add(src);
+		const script = document.createElement('script');
+		script.src = src;
+		document.head.appendChild(script);
+	}
+}
+
 // create session storage object for menu state
 // and/or update state with any new menu items
 function initMenu() {
@@ -323,4 +345,246 @@ function goToLocation(url) {
 		document.location.href = url;
 	}
 }
+// #endregion
+
+
+// #region Search
+/***********************************************************************
+***********************************************************************/
+// Only used when docs are generated with --search. The index is split into
+// shards by the first characters of each term, which are loaded as they're
+// needed, the same way menu.js is, so searching works from file:// too.
+let searchKeys = null;
+let searchIgnored = null;
+let searchQuery = '';
+const searchShards = {};
+
+// called by search/shard-keys.js: each shard's key, and 1 if it's split,
+// and the words too common to be indexed
+function registerSearchKeys(keys, ignored) {
+	searchKeys = keys;
+	searchIgnored = new Set(ignored);
+	search(searchQuery);
+}
+
+// called by each shard as it loads
+function registerSearchShard(key, entries, names, descriptions, top) {
+	searchShards[key] = { key, entries, names, descriptions, top };
+	search(searchQuery);
+}
+
+function requestSearchScript(fileName) {
+	requestScript('search/' + fileName + '.js');
+}
+
+// a word's shard key, the same as SearchIndex.key builds
+function searchKey(word, length) {
+	return word.substring(0, length).replace(/[^a-z0-9]/g, '_');
+}
+
+// the key of the shard holding a word's matches, or null if nothing matches it
+function findSearchKey(word) {
+	let key = searchKey(word, SEARCH_KEY_LENGTH);
+	while (searchKeys[key] === 1 && word.length > key.length) {
+		key = searchKey(word, key.length + 1);
+	}
+	return key in searchKeys ? key : null;
+}
+
+// runs the query, loading any shards it needs first. Each
+// shard re-runs the latest query as it loads.
+function search(query) {
+	searchQuery = query;
+	if (!searchKeys) {
+		query.trim() && requestSearchScript('shard-keys');
+		return;
+	}
+
+	// words shorter than a shard key are still being typed
+	const typed = query.toLowerCase().split(/[^\p{L}\p{N}_]+/u).filter(word => word.length >= SEARCH_KEY_LENGTH);
+	const words = typed.filter(word => !searchIgnored.has(word));
+	if (words.length === 0) {
+		renderSearchResults(typed.length > 0 ? [] : null);
+		return;
+	}
+
+	const keys = words.map(findSearchKey);
+	if (keys.includes(null)) {
+		renderSearchResults([]);
+		return;
+	}
+
+	const pending = keys.filter(key => !searchShards[key]);
+	if (pending.length > 0) {
+		pending.forEach(requestSearchScript);
+		return;
+	}
+
+	// keep the results which match every word, by their own name or description,
+	// or by the class they're in, e.g. 'account run' finds AccountService.run
+	const matches = words.map((word, i) => matchSearchWord(word, searchShards[keys[i]]));
+	const results = new Map();
+	matches.forEach(found => found.forEach((match, id) => results.set(id, { entry: match.entry, score: 0 })));
+	results.forEach((result, id) => {
+		for (let i = 0; i < words.length; i++) {
+			const match = matches[i].get(id);
+			if (match || isSearchOwner(result.entry, words[i])) {
+				result.score += match ? match.score : 1;
+			} else {
+				results.delete(id);
+				return;
+			}
+		}
+	});
+
+	const scopes = getListScope();
+	renderSearchResults([...results.values()]
+		.filter(result => !result.entry.scope || scopes.includes(result.entry.scope))
+		.sort((a, b) => a.score - b.score || a.entry.name.length - b.entry.name.length
+			|| a.entry.name.toLowerCase().localeCompare(b.entry.name.toLowerCase()))
+		.slice(0, SEARCH_MAX_RESULTS));
+}
+
+// whether a word starts the name of the class an entry is in, or of a class that's in
+function isSearchOwner(entry, word) {
+	return entry.owner.toLowerCase().split('.').some(name => name.startsWith(word));
+}
+
+// the entries matching a word, scored as SearchIndex.rank scores them: 0 for
+// a name which is the word, 1 for a name starting with it, then 2 and 3 for
+// the description.
+function matchSearchWord(word, shard) {
+	const matches = new Map();
+	const add = (index, score) => {
+		const [name, kind, scope, owner, href, snippet] = shard.entries[index];
+		const id = href + '|' + name + '|' + kind;
+		if (!matches.has(id) || matches.get(id).score > score) {
+			matches.set(id, { entry: { name, kind, scope, owner, href, snippet }, score });
+		}
+	};
+
+	// a split shard has every match for a word which is its key exactly,
+	// but only the best matches for longer words starting with its key
+	if (shard.top && word.length === shard.key.length) {
+		shard.top.forEach(([index, score]) => add(index, score));
+	}
+
+	[[shard.names, 0], [shard.descriptions, 2]].forEach(([terms, score]) => {
+		for (const term in terms) {
+			if (term.startsWith(word)) {
+				terms[term].forEach(index => add(index, score + (term === word ? 0 : 1)));
+			}
+		}
+	});
+	return matches;
+}
+
+// renders the results, or hides them when results is null
+function renderSearchResults(results) {
+	const panel = document.getElementById('searchResults');
+	if (!panel) {
+		return;
+	}
+
+	panel.textContent = '';
+	toggleVisibility([panel], results !== null);
+	if (results && results.length === 0) {
+		const empty = document.createElement('div');
+		empty.className = 'searchEmpty';
+		empty.textContent = 'No results';
+		panel.appendChild(empty);
+	}
+
+	(results || []).forEach(({ entry }) => {
+		const link = document.createElement('a');
+		link.className = 'searchResult';
+		link.href = entry.href;
+		link.onclick = () => clearSearch();
+
+		const name = document.createElement('span');
+		name.className = 'searchResultName';
+		name.textContent = entry.name;
+		const kind = document.createElement('span');
+		kind.className = 'searchResultKind';
+		kind.textContent = entry.scope + ' ' + entry.kind + (entry.owner ? ' in ' + entry.owner : '');
+		link.append(name, kind);
+
+		if (entry.snippet) {
+			const snippet = document.createElement('div');
+			snippet.className = 'searchResultSnippet';
+			snippet.textContent = entry.snippet;
+			link.appendChild(snippet);
+		}
+		panel.appendChild(link);
+	});
+}
+
+// Enter opens the first result, Escape clears the search
+function searchKeyDown(event) {
+	if (event.key === 'Enter') {
+		const first = document.querySelector('#searchResults .searchResult');
+		first && first.click();
+	} else if (event.key === 'Escape') {
+		clearSearch();
+	}
+}
+
+function clearSearch() {
+	const input = document.getElementById('searchInput');
+	input && (input.value = '');
+	search('');
+}
+// #endregion
+
+
+// #region Lazy Method Details
+/***********************************************************************
+***********************************************************************/
+// Only used when docs are generated with --lazy-details. The details of the
+// methods of a very large class are fetched a fragment at a time, as they're
+// scrolled near to or linked to, or their section is expanded. Fragments are
+// loaded the same way menu.js is, so this works from file:// too.
+function initMethodDetails() {
+	const placeholders = document.querySelectorAll('.methodDetail[data-fragment]');
+	if (placeholders.length === 0) {
+		return;
+	}
+
+	// hidden methods, e.g. in a collapsed section, only intersect once shown
+	const observer = new IntersectionObserver(entries => {
+		entries.forEach(entry => {
+			if (entry.isIntersecting) {
+				observer.unobserve(entry.target);
+				requestScript(entry.target.dataset.fragment);
+			}
+		});
+	}, { rootMargin: '500px 0px' });
+	placeholders.forEach(placeholder => observer.observe(placeholder));
+
+	loadLinkedMethodDetails();
+	window.addEventListener('hashchange', loadLinkedMethodDetails);
+}
+
+// loads the details of the method the URL links to, wherever it is on the page
+function loadLinkedMethodDetails() {
+	const id = decodeURIComponent(document.location.hash.substring(1));
+	const header = id && document.getElementById(id);
+	const placeholder = header && header.parentElement.querySelector('.methodDetail[data-fragment]');
+	placeholder && requestScript(placeholder.dataset.fragment);
+}
+
+// called by each fragment as it loads, with the detail HTML of each of its
+// methods by id. Each method's details follow its header, which has its id.
+function registerMethodDetails(details) {
+	document.querySelectorAll('.methodDetail[data-fragment]').forEach(placeholder => {
+		const html = details[placeholder.previousElementSibling.id];
+		if (html !== undefined) {
+			placeholder.innerHTML = html;
+			placeholder.removeAttribute('data-fragment');
+			placeholder.querySelectorAll('pre code, .methodAnnotations').forEach(block => {
+				hljs.highlightBlock(block);
+			});
+		}
+	});
+}
 // #endregion
\ No newline at end of file